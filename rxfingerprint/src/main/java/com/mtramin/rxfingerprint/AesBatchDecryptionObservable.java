@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+
+import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintResult;
+
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.crypto.Cipher;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Decrypts several values with a single fingerprint authentication. All values are decrypted
+ * with one operation of the authenticated {@link Cipher} by {@link CbcChaining}.
+ * <p/>
+ * Decoding the encrypted values and converting the decrypted values happens in parallel on the
+ * {@link Schedulers#computation()} scheduler. Results are emitted in the order of the given
+ * values and are buffered until they are requested. Disposing the subscription stops the
+ * conversion of the remaining values.
+ * <p/>
+ * The values handed in must be previously encrypted by a {@link AesEncryptionObservable}.
+ */
+@SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
+class AesBatchDecryptionObservable extends CipherObservable<FingerprintDecryptionResult> {
+
+	private final AesCipherProvider cipherProvider;
+	private final List<byte[][]> encrypted;
+
+	/**
+	 * Creates a new AesBatchDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt all of the given values.
+	 *
+	 * @param context   context to use
+	 * @param keyName   keyName to use for the decryption
+	 * @param encrypted values to decrypt
+	 * @return Flowable result of the decryption. Contains one result per given value.
+	 */
+	static Flowable<FingerprintDecryptionResult> create(Context context, String keyName, Iterable<String> encrypted) {
+		return create(context, keyName, CryptoData.fromStrings(Encoding.getProvider(), encrypted, EncryptionMethod.AES));
+	}
+
+	/**
+	 * Creates a new AesBatchDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt all of the given parsed values.
+	 *
+	 * @param context   context to use
+	 * @param keyName   keyName to use for the decryption
+	 * @param encrypted parsed values to decrypt
+	 * @return Flowable result of the decryption. Contains one result per given value.
+	 */
+	static Flowable<FingerprintDecryptionResult> create(final Context context, final String keyName, Flowable<CryptoData> encrypted) {
+		return encrypted.toList()
+				.flatMapPublisher(new Function<List<CryptoData>, Publisher<FingerprintDecryptionResult>>() {
+					@Override
+					public Publisher<FingerprintDecryptionResult> apply(List<CryptoData> values) throws Exception {
+						if (values.isEmpty()) {
+							return Flowable.empty();
+						}
+						AesCipherProvider cipherProvider = new AesCipherProvider(context, keyName);
+						List<byte[][]> encrypted = new ArrayList<>(values.size());
+						for (CryptoData cryptoData : values) {
+							cryptoData.verify(EncryptionMethod.AES, cipherProvider.keyName);
+							encrypted.add(new byte[][]{cryptoData.getMessage(), cryptoData.getIv()});
+						}
+						return Observable.create(new AesBatchDecryptionObservable(new FingerprintApiWrapper(context),
+								cipherProvider,
+								encrypted))
+								// all values are decrypted at once, results are buffered until requested
+								.toFlowable(BackpressureStrategy.BUFFER);
+					}
+				});
+	}
+
+	private AesBatchDecryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+										 AesCipherProvider cipherProvider,
+										 List<byte[][]> encrypted) {
+		super(fingerprintApiWrapper, cipherProvider);
+		this.cipherProvider = cipherProvider;
+		this.encrypted = encrypted;
+	}
+
+	@Override
+	Cipher initCipher() throws Exception {
+		return cipherProvider.getCipherForDecryption(encrypted.get(0)[1]);
+	}
+
+	@Override
+	void onCipherAuthenticated(final ObservableEmitter<FingerprintDecryptionResult> emitter, Cipher cipher) {
+		final List<byte[]> decrypted;
+		try {
+			decrypted = CbcChaining.decrypt(cipher, encrypted);
+		} catch (Exception e) {
+			emitter.onError(cipherProvider.mapCipherFinalOperationException(e));
+			return;
+		}
+
+		// The authentication is complete at this point, so the conversion replaces the
+		// cancellation of the sensor as the work to stop once the subscriber disposes
+		emitter.setDisposable(Flowable.range(0, decrypted.size())
+				.concatMapEager(new Function<Integer, Publisher<FingerprintDecryptionResult>>() {
+					@Override
+					public Publisher<FingerprintDecryptionResult> apply(final Integer index) throws Exception {
+						return Flowable.fromCallable(new Callable<FingerprintDecryptionResult>() {
+							@Override
+							public FingerprintDecryptionResult call() throws Exception {
+								return new FingerprintDecryptionResult(FingerprintResult.AUTHENTICATED, null, ConversionUtils.toChars(decrypted.get(index)));
+							}
+						}).subscribeOn(Schedulers.computation());
+					}
+				})
+				.subscribe(new Consumer<FingerprintDecryptionResult>() {
+					@Override
+					public void accept(FingerprintDecryptionResult decryptionResult) throws Exception {
+						emitter.onNext(decryptionResult);
+					}
+				}, new Consumer<Throwable>() {
+					@Override
+					public void accept(Throwable throwable) throws Exception {
+						emitter.tryOnError(throwable);
+					}
+				}, new Action() {
+					@Override
+					public void run() throws Exception {
+						emitter.onComplete();
+					}
+				}));
+	}
+
+	@Override
+	protected void onAuthenticationHelp(ObservableEmitter<FingerprintDecryptionResult> emitter, int helpMessageId, String helpString) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.HELP, helpString, null));
+	}
+
+	@Override
+	protected void onAuthenticationFailed(ObservableEmitter<FingerprintDecryptionResult> emitter) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.FAILED, null, null));
+	}
+}
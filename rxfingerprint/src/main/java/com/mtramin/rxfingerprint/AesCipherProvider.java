@@ -19,11 +19,14 @@ package com.mtramin.rxfingerprint;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.os.Build;
+import android.security.keystore.KeyInfo;
+import android.security.keystore.KeyPermanentlyInvalidatedException;
 import android.security.keystore.KeyProperties;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyStoreException;
@@ -31,11 +34,13 @@ import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.security.spec.AlgorithmParameterSpec;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.IvParameterSpec;
 
 class AesCipherProvider extends CipherProvider {
@@ -49,26 +54,63 @@ class AesCipherProvider extends CipherProvider {
                super(context, keyName, keyInvalidatedByBiometricEnrollment);
        }
 
+	AesCipherProvider(@NonNull Context context, @Nullable String keyName, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException {
+		super(context, keyName, keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+	}
+
 	private SecretKey findOrCreateKey(String keyName) throws NoSuchProviderException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, UnrecoverableKeyException, CertificateException, KeyStoreException, IOException {
 		if (keyExists(keyName)) {
-			return getKey(keyName);
+			SecretKey key = getKey(keyName);
+			if (key != null) {
+				return key;
+			}
+			Logger.warn("Key was removed from the KeyStore. Creating a new key.");
 		}
-               return createKey(keyName, invalidatedByBiometricEnrollment);
+               return createKey(keyName, blockMode(), encryptionPadding(), invalidatedByBiometricEnrollment, authenticationValiditySeconds);
        }
 
-	private SecretKey getKey(String keyName) throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException {
-		return (SecretKey) keyStore.getKey(keyName, null);
+	private SecretKey getKey(String keyName) throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException, CertificateException, IOException {
+		return (SecretKey) KeyStoreSession.getKey(keyName);
 	}
 
 	@TargetApi(Build.VERSION_CODES.M)
-       private static SecretKey createKey(String keyName, boolean invalidatedByBiometricEnrollment) throws NoSuchAlgorithmException, NoSuchProviderException, InvalidAlgorithmParameterException {
+       private static SecretKey createKey(String keyName, String blockMode, String encryptionPadding, boolean invalidatedByBiometricEnrollment, int authenticationValiditySeconds) throws NoSuchAlgorithmException, NoSuchProviderException, InvalidAlgorithmParameterException {
                KeyGenerator keyGenerator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, ANDROID_KEY_STORE);
-               keyGenerator.init(getKeyGenParameterSpecBuilder(keyName, KeyProperties.BLOCK_MODE_CBC, KeyProperties.ENCRYPTION_PADDING_PKCS7, invalidatedByBiometricEnrollment)
+               keyGenerator.init(getKeyGenParameterSpecBuilder(keyName, blockMode, encryptionPadding, invalidatedByBiometricEnrollment, authenticationValiditySeconds)
                        .setKeySize(AES_KEY_SIZE)
                        .build());
-               return keyGenerator.generateKey();
+               SecretKey key = keyGenerator.generateKey();
+               KeyStoreSession.onEntryCreated(keyName);
+               return key;
        }
 
+	@Override
+	void findOrCreateKey() throws GeneralSecurityException, IOException {
+		findOrCreateKey(keyName);
+	}
+
+	@Override
+	void generateKey() throws GeneralSecurityException {
+		createKey(keyName, blockMode(), encryptionPadding(), invalidatedByBiometricEnrollment, authenticationValiditySeconds);
+	}
+
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	boolean isTimeBound() throws GeneralSecurityException, IOException {
+		Boolean timeBound = KeyStoreSession.isTimeBound(keyName);
+		if (timeBound == null) {
+			SecretKey key = getKey(keyName);
+			if (key == null) {
+				return false;
+			}
+			KeyInfo keyInfo = (KeyInfo) SecretKeyFactory.getInstance(key.getAlgorithm(), ANDROID_KEY_STORE)
+					.getKeySpec(key, KeyInfo.class);
+			timeBound = keyInfo.getUserAuthenticationValidityDurationSeconds() > 0;
+			KeyStoreSession.setTimeBound(keyName, timeBound);
+		}
+		return timeBound;
+	}
+
 	@Override
 	Cipher cipherForEncryption() throws NoSuchAlgorithmException, NoSuchPaddingException, CertificateException, UnrecoverableKeyException, KeyStoreException, NoSuchProviderException, InvalidAlgorithmParameterException, IOException, InvalidKeyException {
 		Cipher cipher = createCipher();
@@ -84,7 +126,12 @@ class AesCipherProvider extends CipherProvider {
 	Cipher getCipherForDecryption(byte[] iv) throws CertificateException, NoSuchAlgorithmException, IOException, InvalidKeyException, UnrecoverableKeyException, KeyStoreException, InvalidAlgorithmParameterException, NoSuchPaddingException {
 		Cipher cipher = createCipher();
 		SecretKey key = getKey(keyName);
-		cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+		try {
+			cipher.init(Cipher.DECRYPT_MODE, key, decryptionParameters(iv));
+		} catch (KeyPermanentlyInvalidatedException e) {
+			KeyStoreSession.evictKeys(keyName);
+			throw e;
+		}
 		return cipher;
 	}
 
@@ -92,7 +139,31 @@ class AesCipherProvider extends CipherProvider {
 	@TargetApi(Build.VERSION_CODES.M)
 	Cipher createCipher() throws NoSuchPaddingException, NoSuchAlgorithmException {
 		return Cipher.getInstance(KeyProperties.KEY_ALGORITHM_AES + "/"
-				+ KeyProperties.BLOCK_MODE_CBC + "/"
-				+ KeyProperties.ENCRYPTION_PADDING_PKCS7);
+				+ blockMode() + "/"
+				+ encryptionPadding());
+	}
+
+	/**
+	 * @return block mode of the key and cipher of this provider
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	String blockMode() {
+		return KeyProperties.BLOCK_MODE_CBC;
+	}
+
+	/**
+	 * @return encryption padding of the key and cipher of this provider
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	String encryptionPadding() {
+		return KeyProperties.ENCRYPTION_PADDING_PKCS7;
+	}
+
+	/**
+	 * @param iv initialization vector used during encryption
+	 * @return parameters to initialize the cipher of this provider for decryption with
+	 */
+	AlgorithmParameterSpec decryptionParameters(byte[] iv) {
+		return new IvParameterSpec(iv);
 	}
 }
@@ -18,12 +18,8 @@ package com.mtramin.rxfingerprint;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.hardware.fingerprint.FingerprintManager.AuthenticationResult;
-import android.hardware.fingerprint.FingerprintManager.CryptoObject;
-import android.support.annotation.Nullable;
 
 import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
-import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
 import com.mtramin.rxfingerprint.data.FingerprintResult;
 
 import javax.crypto.Cipher;
@@ -36,66 +32,71 @@ import io.reactivex.ObservableEmitter;
  * can only be used with fingerprint authentication and uses it once authentication was successful
  * to encrypt the given data.
  * <p/>
- * The date handed in must be previously encrypted by a {@link AesEncryptionObservable}.
+ * The date handed in must be previously encrypted by a {@link AesEncryptionObservable}, with
+ * either {@link EncryptionMethod#AES} or {@link EncryptionMethod#AES_GCM}. Values encrypted with
+ * {@link EncryptionMethod#AES_GCM} are authenticated by the {@link Cipher}, tampered values fail
+ * without returning any decrypted data.
  */
 @SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
-class AesDecryptionObservable extends FingerprintObservable<FingerprintDecryptionResult> {
+class AesDecryptionObservable extends CipherObservable<FingerprintDecryptionResult> {
 
 	private final AesCipherProvider cipherProvider;
-	private final String encryptedString;
-	private final EncodingProvider encodingProvider;
+	private final CryptoData cryptoData;
+	private final DecryptionFormat format;
 
 	/**
-	 * Creates a new AesEncryptionObservable that will listen to fingerprint authentication
-	 * to encrypt the given data.
+	 * Creates a new AesDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt the given data.
 	 *
-	 * @param context   context to use
-	 * @param keyName   keyName to use for the decryption
-	 * @param encrypted data to encrypt  @return Observable {@link FingerprintEncryptionResult}
+	 * @param context      context to use
+	 * @param keyName      keyName to use for the decryption
+	 * @param cryptoData   data previously encrypted by RxFingerprint
+	 * @param format       form in which the decrypted data is returned
 	 * @return Observable result of the decryption
 	 */
-	static Observable<FingerprintDecryptionResult> create(Context context, String keyName, String encrypted) {
+	static Observable<FingerprintDecryptionResult> create(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) {
 		try {
-			return Observable.create(new AesDecryptionObservable(new FingerprintApiWrapper(context),
-					new AesCipherProvider(context, keyName),
-					encrypted,
-					new Base64Provider()));
+			return Observable.create(newInstance(context, keyName, cryptoData, format));
 		} catch (Exception e) {
 			return Observable.error(e);
 		}
 	}
 
+	/**
+	 * Creates a new AesDecryptionObservable without subscribing to it, e.g. to prepare its
+	 * {@link android.hardware.fingerprint.FingerprintManager.CryptoObject} ahead of time.
+	 */
+	static AesDecryptionObservable newInstance(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) throws Exception {
+		EncryptionMethod method = cryptoData.getMethod() == EncryptionMethod.AES_GCM ? EncryptionMethod.AES_GCM : EncryptionMethod.AES;
+		AesCipherProvider cipherProvider = method == EncryptionMethod.AES_GCM
+				? new AesGcmCipherProvider(context, keyName)
+				: new AesCipherProvider(context, keyName);
+		cryptoData.verify(method, cipherProvider.keyName);
+		return new AesDecryptionObservable(new FingerprintApiWrapper(context),
+				cipherProvider,
+				cryptoData,
+				format);
+	}
+
 	private AesDecryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
 									AesCipherProvider cipherProvider,
-									String encrypted,
-									EncodingProvider encodingProvider) {
-		super(fingerprintApiWrapper);
+									CryptoData cryptoData,
+									DecryptionFormat format) {
+		super(fingerprintApiWrapper, cipherProvider);
 		this.cipherProvider = cipherProvider;
-		encryptedString = encrypted;
-		this.encodingProvider = encodingProvider;
+		this.cryptoData = cryptoData;
+		this.format = format;
 	}
 
-	@Nullable
 	@Override
-	protected CryptoObject initCryptoObject(ObservableEmitter<FingerprintDecryptionResult> subscriber) {
-		try {
-			CryptoData cryptoData = CryptoData.fromString(encodingProvider, encryptedString);
-			Cipher cipher = cipherProvider.getCipherForDecryption(cryptoData.getIv());
-			return new CryptoObject(cipher);
-		} catch (Exception e) {
-			subscriber.onError(e);
-			return null;
-		}
+	Cipher initCipher() throws Exception {
+		return cipherProvider.getCipherForDecryption(cryptoData.getIv());
 	}
 
 	@Override
-	protected void onAuthenticationSucceeded(ObservableEmitter<FingerprintDecryptionResult> emitter, AuthenticationResult result) {
+	void onCipherAuthenticated(ObservableEmitter<FingerprintDecryptionResult> emitter, Cipher cipher) {
 		try {
-			CryptoData cryptoData = CryptoData.fromString(encodingProvider, encryptedString);
-			Cipher cipher = result.getCryptoObject().getCipher();
-			byte[] bytes = cipher.doFinal(cryptoData.getMessage());
-
-			emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.AUTHENTICATED, null, ConversionUtils.toChars(bytes)));
+			emitter.onNext(format.decrypt(cipher, cryptoData.getMessageBuffer()));
 			emitter.onComplete();
 		} catch (Exception e) {
 			emitter.onError(cipherProvider.mapCipherFinalOperationException(e));
@@ -18,9 +18,6 @@ package com.mtramin.rxfingerprint;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.hardware.fingerprint.FingerprintManager.AuthenticationResult;
-import android.hardware.fingerprint.FingerprintManager.CryptoObject;
-import android.support.annotation.Nullable;
 
 import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
 import com.mtramin.rxfingerprint.data.FingerprintResult;
@@ -28,9 +25,11 @@ import com.mtramin.rxfingerprint.data.FingerprintResult;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import javax.crypto.Cipher;
-import javax.crypto.spec.IvParameterSpec;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
@@ -39,11 +38,17 @@ import io.reactivex.ObservableEmitter;
  * Encrypts data with fingerprint authentication. Initializes a {@link Cipher} for encryption which
  * can only be used with fingerprint authentication and uses it once authentication was successful
  * to encrypt the given data.
+ * <p/>
+ * Several values can be encrypted with a single fingerprint authentication. The values are then
+ * chained through the authenticated {@link Cipher} by {@link CbcChaining}. This is only possible
+ * with {@link EncryptionMethod#AES}, values encrypted with {@link EncryptionMethod#AES_GCM} need a
+ * separate authentication each.
  */
 @SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
-class AesEncryptionObservable extends FingerprintObservable<FingerprintEncryptionResult> {
+class AesEncryptionObservable extends CipherObservable<FingerprintEncryptionResult> {
 
-	private final char[] toEncrypt;
+	private final EncryptionMethod method;
+	private final List<ByteBuffer> toEncrypt;
 	private final EncodingProvider encodingProvider;
 	private final AesCipherProvider cipherProvider;
 
@@ -51,16 +56,91 @@ class AesEncryptionObservable extends FingerprintObservable<FingerprintEncryptio
 	 * Creates a new AesEncryptionObservable that will listen to fingerprint authentication
 	 * to encrypt the given data.
 	 *
+	 * @param method    {@link EncryptionMethod#AES} or {@link EncryptionMethod#AES_GCM}
 	 * @param context   context to use
 	 * @param keyName   name of the key in the keystore
 	 * @param toEncrypt data to encrypt  @return Observable {@link FingerprintEncryptionResult}
 	 */
-	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, char[] toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+	static Observable<FingerprintEncryptionResult> create(EncryptionMethod method, Context context, String keyName, char[] toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		return create(method, context, keyName, Collections.singletonList(toEncrypt), keyInvalidatedByBiometricEnrollment, 0);
+	}
+
+	/**
+	 * Creates a new AesEncryptionObservable that will listen to fingerprint authentication
+	 * to encrypt all of the given values. Emits one result per value in the given order.
+	 *
+	 * @param method    {@link EncryptionMethod#AES} or {@link EncryptionMethod#AES_GCM}
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt
+	 * @param authenticationValiditySeconds duration for which a newly created key can be used
+	 *                                      after authentication, {@code 0} to authenticate every use
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(EncryptionMethod method, Context context, String keyName, Iterable<char[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
+		List<byte[]> values = new ArrayList<>();
+		for (char[] value : toEncrypt) {
+			if (value == null) {
+				return Observable.error(new NullPointerException("String to be encrypted is null. Can only encrypt valid strings"));
+			}
+			values.add(ConversionUtils.toBytes(value));
+		}
+		return create(method, context, keyName, values, keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+	}
+
+	/**
+	 * Creates a new AesEncryptionObservable that will listen to fingerprint authentication
+	 * to encrypt all of the given binary values. Emits one result per value in the given order.
+	 *
+	 * @param method    {@link EncryptionMethod#AES} or {@link EncryptionMethod#AES_GCM}
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt. Will be cleared after encryption.
+	 * @param authenticationValiditySeconds duration for which a newly created key can be used
+	 *                                      after authentication, {@code 0} to authenticate every use
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(EncryptionMethod method, Context context, String keyName, List<byte[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
+		if (toEncrypt.isEmpty()) {
+			return Observable.empty();
+		}
+		return fromBuffers(method, context, keyName, CipherUtils.wrap(toEncrypt), keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+	}
+
+	/**
+	 * Creates a new AesEncryptionObservable that will listen to fingerprint authentication
+	 * to encrypt the content of the given {@link SecureBuffer}.
+	 *
+	 * @param method    {@link EncryptionMethod#AES} or {@link EncryptionMethod#AES_GCM}
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt value to encrypt. Will be wiped after encryption.
+	 * @param authenticationValiditySeconds duration for which a newly created key can be used
+	 *                                      after authentication, {@code 0} to authenticate every use
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(EncryptionMethod method, Context context, String keyName, SecureBuffer toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
 		try {
+			return fromBuffers(method, context, keyName, Collections.singletonList(toEncrypt.content()), keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	private static Observable<FingerprintEncryptionResult> fromBuffers(EncryptionMethod method, Context context, String keyName, List<ByteBuffer> toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
+		if (method == EncryptionMethod.AES_GCM && toEncrypt.size() > 1) {
+			return Observable.error(new IllegalArgumentException("Encrypting several values at once is not supported for encryption method: " + method));
+		}
+
+		try {
+			AesCipherProvider cipherProvider = method == EncryptionMethod.AES_GCM
+					? new AesGcmCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds)
+					: new AesCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
 			return Observable.create(new AesEncryptionObservable(new FingerprintApiWrapper(context),
-					new AesCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment),
+					cipherProvider,
+					method,
 					toEncrypt,
-					new Base64Provider()));
+					Encoding.getProvider()));
 		} catch (Exception e) {
 			return Observable.error(e);
 		}
@@ -68,47 +148,57 @@ class AesEncryptionObservable extends FingerprintObservable<FingerprintEncryptio
 
 	private AesEncryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
 							AesCipherProvider cipherProvider,
-							char[] toEncrypt,
+							EncryptionMethod method,
+							List<ByteBuffer> toEncrypt,
 							EncodingProvider encodingProvider) {
-		super(fingerprintApiWrapper);
+		super(fingerprintApiWrapper, cipherProvider);
 		this.cipherProvider = cipherProvider;
+		this.method = method;
 
-		if (toEncrypt == null) {
+		if (toEncrypt.contains(null)) {
 			throw new NullPointerException("String to be encrypted is null. Can only encrypt valid strings");
 		}
 		this.toEncrypt = toEncrypt;
 		this.encodingProvider = encodingProvider;
 	}
 
-	@Nullable
 	@Override
-	protected CryptoObject initCryptoObject(ObservableEmitter<FingerprintEncryptionResult> emitter) {
-		try {
-			Cipher cipher = cipherProvider.getCipherForEncryption();
-			return new CryptoObject(cipher);
-		} catch (Exception e) {
-			emitter.onError(e);
-			return null;
-		}
+	Cipher initCipher() throws Exception {
+		return cipherProvider.getCipherForEncryption();
 	}
 
 	@Override
-	protected void onAuthenticationSucceeded(ObservableEmitter<FingerprintEncryptionResult> emitter, AuthenticationResult result) {
+	void onCipherAuthenticated(ObservableEmitter<FingerprintEncryptionResult> emitter, Cipher cipher) {
 		try {
-			Cipher cipher = result.getCryptoObject().getCipher();
-			byte[] encryptedBytes = cipher.doFinal(ConversionUtils.toBytes(toEncrypt));
-			byte[] ivBytes = cipher.getParameters().getParameterSpec(IvParameterSpec.class).getIV();
-
-			String encryptedString = CryptoData.fromBytes(encodingProvider, encryptedBytes, ivBytes).toString();
-			CryptoData.verifyCryptoDataString(encryptedString);
-
-			emitter.onNext(new FingerprintEncryptionResult(FingerprintResult.AUTHENTICATED, null, encryptedString));
+			if (toEncrypt.size() == 1) {
+				byte[] encryptedBytes = CipherUtils.doFinal(cipher, toEncrypt.get(0));
+				SecureBuffer.wipe(toEncrypt.get(0));
+				byte[] ivBytes = cipher.getIV();
+
+				emitEncrypted(emitter, encryptedBytes, ivBytes);
+			} else {
+				List<byte[]> values = new ArrayList<>(toEncrypt.size());
+				for (ByteBuffer value : toEncrypt) {
+					values.add(CipherUtils.toArray(value));
+				}
+				List<byte[][]> results = CbcChaining.encrypt(cipher, values);
+				for (ByteBuffer value : toEncrypt) {
+					SecureBuffer.wipe(value);
+				}
+				for (byte[][] encrypted : results) {
+					emitEncrypted(emitter, encrypted[0], encrypted[1]);
+				}
+			}
 			emitter.onComplete();
 		} catch (Exception e) {
 			emitter.onError(cipherProvider.mapCipherFinalOperationException(e));
 		}
 	}
 
+	private void emitEncrypted(ObservableEmitter<FingerprintEncryptionResult> emitter, byte[] encryptedBytes, byte[] ivBytes) {
+		emitter.onNext(new CryptoDataEncryptionResult(CryptoData.fromBytes(encodingProvider, method, cipherProvider.keyName, encryptedBytes, ivBytes)));
+	}
+
 	@Override
 	protected void onAuthenticationHelp(ObservableEmitter<FingerprintEncryptionResult> emitter, int helpMessageId, String helpString) {
 		emitter.onNext(new FingerprintEncryptionResult(FingerprintResult.HELP, helpString, null));
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.security.keystore.KeyProperties;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.spec.AlgorithmParameterSpec;
+
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Provides ciphers for {@link EncryptionMethod#AES_GCM}. The key is generated for AES/GCM without
+ * padding, the initialization vector is chosen by the Android {@link java.security.KeyStore}
+ * during encryption.
+ * <p/>
+ * A key of {@link EncryptionMethod#AES} is only authorized for CBC with PKCS#7 padding. The key is
+ * therefore stored under the given key name with {@link #ALIAS_SUFFIX} appended, so both methods
+ * can be used with the same key name.
+ */
+class AesGcmCipherProvider extends AesCipherProvider {
+	static final String ALIAS_SUFFIX = ".aes_gcm";
+	static final int IV_SIZE = 12;
+	static final int TAG_SIZE = 16;
+
+	AesGcmCipherProvider(@NonNull Context context, @Nullable String keyName) throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException {
+		this(context, keyName, true, 0);
+	}
+
+	AesGcmCipherProvider(@NonNull Context context, @Nullable String keyName, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException {
+		super(context, keyNameOrDefault(context, keyName) + ALIAS_SUFFIX, keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+	}
+
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	String blockMode() {
+		return KeyProperties.BLOCK_MODE_GCM;
+	}
+
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	String encryptionPadding() {
+		return KeyProperties.ENCRYPTION_PADDING_NONE;
+	}
+
+	@Override
+	AlgorithmParameterSpec decryptionParameters(byte[] iv) {
+		return new GCMParameterSpec(TAG_SIZE * 8, iv);
+	}
+}
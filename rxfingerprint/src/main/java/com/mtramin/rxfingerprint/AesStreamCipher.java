@@ -0,0 +1,267 @@
+/*
+ * Copyright 2015 Marvin Ramin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.content.Context;
+
+import org.reactivestreams.Publisher;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.functions.BiConsumer;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Encrypts and decrypts streams of data chunk by chunk with an authenticated AES {@link Cipher}.
+ * Every chunk is passed to {@link Cipher#update(byte[])} on its own, so memory usage only depends
+ * on the size of the chunks and not on the size of the whole stream.
+ * <p/>
+ * The encrypted stream starts with the initialization vector, followed by the encrypted data.
+ * Processing of chunks continues on the {@link Schedulers#io()} scheduler once the user
+ * authenticated.
+ */
+class AesStreamCipher {
+	static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * @param context context to use
+	 * @param keyName name of the key in the keystore
+	 * @param input   chunks of data to encrypt
+	 * @return chunks of the encrypted stream
+	 */
+	static Flowable<ByteBuffer> encrypt(final Context context, final String keyName, final Flowable<ByteBuffer> input) {
+		return Flowable.defer(new Callable<Publisher<ByteBuffer>>() {
+			@Override
+			public Publisher<ByteBuffer> call() throws Exception {
+				AesCipherProvider cipherProvider = new AesCipherProvider(context, keyName);
+				Single<Cipher> authentication = AuthenticatedCipherObservable.create(context, cipherProvider, null)
+						.observeOn(Schedulers.io());
+				return mapErrors(encrypt(authentication, input), cipherProvider);
+			}
+		});
+	}
+
+	/**
+	 * @param context context to use
+	 * @param keyName name of the key in the keystore
+	 * @param input   chunks of a stream previously encrypted by
+	 *                {@link #encrypt(Context, String, Flowable)}
+	 * @return chunks of the decrypted stream
+	 */
+	static Flowable<ByteBuffer> decrypt(final Context context, final String keyName, final Flowable<ByteBuffer> input) {
+		return Flowable.defer(new Callable<Publisher<ByteBuffer>>() {
+			@Override
+			public Publisher<ByteBuffer> call() throws Exception {
+				final AesCipherProvider cipherProvider = new AesCipherProvider(context, keyName);
+				Function<byte[], Single<Cipher>> authentication = new Function<byte[], Single<Cipher>>() {
+					@Override
+					public Single<Cipher> apply(byte[] iv) throws Exception {
+						return AuthenticatedCipherObservable.create(context, cipherProvider, iv)
+								.observeOn(Schedulers.io());
+					}
+				};
+				return mapErrors(decrypt(authentication, input), cipherProvider);
+			}
+		});
+	}
+
+	/**
+	 * Encrypts the given input with the {@link Cipher} emitted by the given authentication.
+	 *
+	 * @param authentication emits the authenticated {@link Cipher}
+	 * @param input          chunks of data to encrypt
+	 * @return chunks of the encrypted stream
+	 */
+	static Flowable<ByteBuffer> encrypt(Single<Cipher> authentication, final Flowable<ByteBuffer> input) {
+		return authentication.flatMapPublisher(new Function<Cipher, Publisher<ByteBuffer>>() {
+			@Override
+			public Publisher<ByteBuffer> apply(final Cipher cipher) throws Exception {
+				byte[] iv = cipher.getParameters().getParameterSpec(IvParameterSpec.class).getIV();
+				return Flowable.just(ByteBuffer.wrap(iv))
+						.concatWith(input.concatMap(new Function<ByteBuffer, Publisher<ByteBuffer>>() {
+							@Override
+							public Publisher<ByteBuffer> apply(ByteBuffer chunk) throws Exception {
+								return update(cipher, chunk);
+							}
+						}))
+						.concatWith(doFinal(cipher));
+			}
+		});
+	}
+
+	/**
+	 * Decrypts the given input. Authentication starts once the initialization vector was read from
+	 * the input.
+	 *
+	 * @param authentication emits the authenticated {@link Cipher} for the given initialization
+	 *                       vector
+	 * @param input          chunks of a previously encrypted stream
+	 * @return chunks of the decrypted stream
+	 */
+	static Flowable<ByteBuffer> decrypt(final Function<byte[], Single<Cipher>> authentication, final Flowable<ByteBuffer> input) {
+		return Flowable.defer(new Callable<Publisher<ByteBuffer>>() {
+			@Override
+			public Publisher<ByteBuffer> call() throws Exception {
+				final StreamDecryption decryption = new StreamDecryption(authentication);
+				return input.concatMap(decryption)
+						.concatWith(Flowable.defer(new Callable<Publisher<ByteBuffer>>() {
+							@Override
+							public Publisher<ByteBuffer> call() throws Exception {
+								return decryption.finish();
+							}
+						}));
+			}
+		});
+	}
+
+	/**
+	 * Reads the given {@link InputStream} in chunks of {@link #CHUNK_SIZE} as they are requested.
+	 * The stream is closed once it was read completely or the subscription is disposed.
+	 *
+	 * @param inputStream stream to read
+	 * @return chunks of the stream
+	 */
+	static Flowable<ByteBuffer> fromInputStream(final InputStream inputStream) {
+		return Flowable.generate(new Callable<InputStream>() {
+			@Override
+			public InputStream call() throws Exception {
+				return inputStream;
+			}
+		}, new BiConsumer<InputStream, Emitter<ByteBuffer>>() {
+			@Override
+			public void accept(InputStream stream, Emitter<ByteBuffer> emitter) throws Exception {
+				byte[] buffer = new byte[CHUNK_SIZE];
+				int read = stream.read(buffer);
+				if (read < 0) {
+					emitter.onComplete();
+				} else {
+					emitter.onNext(ByteBuffer.wrap(buffer, 0, read));
+				}
+			}
+		}, new Consumer<InputStream>() {
+			@Override
+			public void accept(InputStream stream) throws Exception {
+				stream.close();
+			}
+		});
+	}
+
+	private static Flowable<ByteBuffer> update(Cipher cipher, ByteBuffer chunk) {
+		if (!chunk.hasRemaining()) {
+			return Flowable.empty();
+		}
+
+		byte[] output;
+		if (chunk.hasArray()) {
+			output = cipher.update(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+			chunk.position(chunk.limit());
+		} else {
+			byte[] input = new byte[chunk.remaining()];
+			chunk.get(input);
+			output = cipher.update(input);
+			Arrays.fill(input, (byte) 0);
+		}
+		return wrap(output);
+	}
+
+	private static Flowable<ByteBuffer> doFinal(final Cipher cipher) {
+		return Flowable.defer(new Callable<Publisher<ByteBuffer>>() {
+			@Override
+			public Publisher<ByteBuffer> call() throws Exception {
+				return wrap(cipher.doFinal());
+			}
+		});
+	}
+
+	private static Flowable<ByteBuffer> wrap(byte[] output) {
+		if (output == null || output.length == 0) {
+			return Flowable.empty();
+		}
+		return Flowable.just(ByteBuffer.wrap(output));
+	}
+
+	private static Flowable<ByteBuffer> mapErrors(Flowable<ByteBuffer> flowable, final CipherProvider cipherProvider) {
+		return flowable.onErrorResumeNext(new Function<Throwable, Publisher<ByteBuffer>>() {
+			@Override
+			public Publisher<ByteBuffer> apply(Throwable throwable) throws Exception {
+				if (throwable instanceof Exception) {
+					return Flowable.error(cipherProvider.mapCipherFinalOperationException((Exception) throwable));
+				}
+				return Flowable.error(throwable);
+			}
+		});
+	}
+
+	/**
+	 * Decrypts the chunks of a single stream. Collects the initialization vector from the first
+	 * chunks before authenticating.
+	 */
+	private static class StreamDecryption implements Function<ByteBuffer, Publisher<ByteBuffer>> {
+		private final Function<byte[], Single<Cipher>> authentication;
+		private final byte[] iv = new byte[CbcChaining.BLOCK_SIZE];
+		private int ivLength;
+		private Cipher cipher;
+
+		StreamDecryption(Function<byte[], Single<Cipher>> authentication) {
+			this.authentication = authentication;
+		}
+
+		@Override
+		public Publisher<ByteBuffer> apply(final ByteBuffer chunk) throws Exception {
+			if (cipher != null) {
+				return update(cipher, chunk);
+			}
+
+			int length = Math.min(chunk.remaining(), iv.length - ivLength);
+			chunk.get(iv, ivLength, length);
+			ivLength += length;
+			if (ivLength < iv.length) {
+				return Flowable.empty();
+			}
+
+			return authentication.apply(iv).flatMapPublisher(new Function<Cipher, Publisher<ByteBuffer>>() {
+				@Override
+				public Publisher<ByteBuffer> apply(Cipher authenticated) throws Exception {
+					cipher = authenticated;
+					return update(cipher, chunk);
+				}
+			});
+		}
+
+		Flowable<ByteBuffer> finish() throws CryptoDataException {
+			if (cipher == null) {
+				throw CryptoDataException.fromStream();
+			}
+			return doFinal(cipher);
+		}
+	}
+
+	private AesStreamCipher() {
+		// hide
+	}
+}
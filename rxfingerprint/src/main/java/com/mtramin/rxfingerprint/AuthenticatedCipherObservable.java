@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Marvin Ramin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.support.annotation.Nullable;
+
+import javax.crypto.Cipher;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.Single;
+
+/**
+ * Authenticates the user and emits the authenticated AES {@link Cipher} itself, so it can be used
+ * for operations that do not fit a single call to {@link Cipher#doFinal()}.
+ * <p/>
+ * Help messages and failed attempts are not emitted. The fingerprint sensor stays active until
+ * the user authenticated successfully or an error occurred.
+ */
+@SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
+class AuthenticatedCipherObservable extends CipherObservable<Cipher> {
+
+	private final AesCipherProvider cipherProvider;
+	@Nullable private final byte[] iv;
+
+	/**
+	 * Creates a new AuthenticatedCipherObservable that will listen to fingerprint authentication
+	 * to authenticate a {@link Cipher} of the given provider.
+	 *
+	 * @param context        context to use
+	 * @param cipherProvider provider of the {@link Cipher}
+	 * @param iv             initialization vector for decryption or {@code null} for encryption
+	 * @return Single emitting the authenticated {@link Cipher}
+	 */
+	static Single<Cipher> create(Context context, AesCipherProvider cipherProvider, @Nullable byte[] iv) {
+		return Observable.create(new AuthenticatedCipherObservable(new FingerprintApiWrapper(context), cipherProvider, iv))
+				.firstOrError();
+	}
+
+	private AuthenticatedCipherObservable(FingerprintApiWrapper fingerprintApiWrapper,
+										  AesCipherProvider cipherProvider,
+										  @Nullable byte[] iv) {
+		super(fingerprintApiWrapper, cipherProvider);
+		this.cipherProvider = cipherProvider;
+		this.iv = iv;
+	}
+
+	@Override
+	Cipher initCipher() throws Exception {
+		if (iv == null) {
+			return cipherProvider.getCipherForEncryption();
+		}
+		return cipherProvider.getCipherForDecryption(iv);
+	}
+
+	@Override
+	void onCipherAuthenticated(ObservableEmitter<Cipher> emitter, Cipher cipher) {
+		emitter.onNext(cipher);
+		emitter.onComplete();
+	}
+
+	@Override
+	protected void onAuthenticationHelp(ObservableEmitter<Cipher> emitter, int helpMessageId, String helpString) {
+		// sensor stays active, nothing to emit
+	}
+
+	@Override
+	protected void onAuthenticationFailed(ObservableEmitter<Cipher> emitter) {
+		// sensor stays active, nothing to emit
+	}
+}
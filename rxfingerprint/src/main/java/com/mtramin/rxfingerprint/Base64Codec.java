@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Base64 codec as specified by RFC 4648 that does not depend on Android.
+ * <p/>
+ * Encodes without line wrapping and with padding, using either the standard or the URL-safe
+ * alphabet. Output can be written straight into a given array or {@link CharBuffer}.
+ * <p/>
+ * Decoding accepts both alphabets, missing padding and whitespace, so data encoded with line
+ * wrapping by {@code android.util.Base64#DEFAULT} can still be read.
+ */
+final class Base64Codec {
+	private static final String STANDARD_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+	private static final String URL_SAFE_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+	static final Base64Codec STANDARD = new Base64Codec(STANDARD_ALPHABET);
+	static final Base64Codec URL_SAFE = new Base64Codec(URL_SAFE_ALPHABET);
+
+	private static final char PAD = '=';
+	private static final byte INVALID = -1;
+	private static final byte SKIP = -2;
+	private static final byte PADDING = -3;
+	private static final byte[] DECODE_TABLE = createDecodeTable();
+
+	private final char[] alphabet;
+
+	private Base64Codec(String alphabet) {
+		this.alphabet = alphabet.toCharArray();
+	}
+
+	/**
+	 * @param length number of bytes to encode
+	 * @return number of characters the encoded bytes take up
+	 */
+	static int encodedLength(int length) {
+		return (length + 2) / 3 * 4;
+	}
+
+	/**
+	 * @param toEncode bytes to encode
+	 * @return encoded String
+	 */
+	String encode(byte[] toEncode) {
+		return encode(toEncode, 0, toEncode.length);
+	}
+
+	/**
+	 * Encodes the given range of bytes to a String.
+	 *
+	 * @return encoded String
+	 */
+	String encode(byte[] src, int srcOffset, int length) {
+		char[] encoded = new char[encodedLength(length)];
+		encode(src, srcOffset, length, encoded, 0);
+		return new String(encoded);
+	}
+
+	/**
+	 * Encodes the given range of bytes as ASCII characters into the given array.
+	 *
+	 * @return number of bytes written
+	 */
+	int encode(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset) {
+		int end = srcOffset + length - length % 3;
+		int d = dstOffset;
+		for (int s = srcOffset; s < end; s += 3) {
+			int bits = (src[s] & 0xFF) << 16 | (src[s + 1] & 0xFF) << 8 | src[s + 2] & 0xFF;
+			dst[d++] = (byte) alphabet[bits >>> 18];
+			dst[d++] = (byte) alphabet[bits >>> 12 & 0x3F];
+			dst[d++] = (byte) alphabet[bits >>> 6 & 0x3F];
+			dst[d++] = (byte) alphabet[bits & 0x3F];
+		}
+
+		int remaining = length % 3;
+		if (remaining > 0) {
+			int bits = lastBits(src, end, remaining);
+			dst[d++] = (byte) alphabet[bits >>> 18];
+			dst[d++] = (byte) alphabet[bits >>> 12 & 0x3F];
+			dst[d++] = (byte) (remaining == 2 ? alphabet[bits >>> 6 & 0x3F] : PAD);
+			dst[d++] = (byte) PAD;
+		}
+		return d - dstOffset;
+	}
+
+	/**
+	 * Encodes the given range of bytes into the given array.
+	 *
+	 * @return number of characters written
+	 */
+	int encode(byte[] src, int srcOffset, int length, char[] dst, int dstOffset) {
+		int end = srcOffset + length - length % 3;
+		int d = dstOffset;
+		for (int s = srcOffset; s < end; s += 3) {
+			int bits = (src[s] & 0xFF) << 16 | (src[s + 1] & 0xFF) << 8 | src[s + 2] & 0xFF;
+			dst[d++] = alphabet[bits >>> 18];
+			dst[d++] = alphabet[bits >>> 12 & 0x3F];
+			dst[d++] = alphabet[bits >>> 6 & 0x3F];
+			dst[d++] = alphabet[bits & 0x3F];
+		}
+
+		int remaining = length % 3;
+		if (remaining > 0) {
+			int bits = lastBits(src, end, remaining);
+			dst[d++] = alphabet[bits >>> 18];
+			dst[d++] = alphabet[bits >>> 12 & 0x3F];
+			dst[d++] = remaining == 2 ? alphabet[bits >>> 6 & 0x3F] : PAD;
+			dst[d++] = PAD;
+		}
+		return d - dstOffset;
+	}
+
+	/**
+	 * Encodes the given range of bytes into the given buffer, starting at its position. The
+	 * position of the buffer is advanced by the number of characters written.
+	 */
+	void encode(byte[] src, int srcOffset, int length, CharBuffer dst) {
+		int encodedLength = encodedLength(length);
+		if (dst.remaining() < encodedLength) {
+			throw new IllegalArgumentException("Buffer too small to hold " + encodedLength + " characters");
+		}
+
+		if (dst.hasArray()) {
+			int written = encode(src, srcOffset, length, dst.array(), dst.arrayOffset() + dst.position());
+			dst.position(dst.position() + written);
+		} else {
+			char[] encoded = new char[encodedLength];
+			encode(src, srcOffset, length, encoded, 0);
+			dst.put(encoded);
+		}
+	}
+
+	/**
+	 * @param toDecode encoded characters in either alphabet
+	 * @return decoded bytes
+	 * @throws IllegalArgumentException if the input is not valid Base64
+	 */
+	static byte[] decode(CharSequence toDecode) {
+		byte[] decoded = new byte[decodedLength(toDecode)];
+		decode(toDecode, decoded, 0);
+		return decoded;
+	}
+
+	/**
+	 * Decodes the given characters into the given array. Use {@link #decodedLength(CharSequence)}
+	 * to find out how much space is needed.
+	 *
+	 * @return number of bytes written
+	 * @throws IllegalArgumentException if the input is not valid Base64
+	 */
+	static int decode(CharSequence src, byte[] dst, int dstOffset) {
+		int bits = 0;
+		int count = 0;
+		int d = dstOffset;
+		boolean padded = false;
+		for (int i = 0; i < src.length(); i++) {
+			int value = valueOf(src.charAt(i));
+			if (value == SKIP) {
+				continue;
+			}
+			if (value == PADDING) {
+				padded = true;
+				continue;
+			}
+			if (value == INVALID || padded) {
+				throw new IllegalArgumentException("Invalid Base64 character at index " + i);
+			}
+
+			bits = bits << 6 | value;
+			if (++count == 4) {
+				dst[d++] = (byte) (bits >> 16);
+				dst[d++] = (byte) (bits >> 8);
+				dst[d++] = (byte) bits;
+				bits = 0;
+				count = 0;
+			}
+		}
+
+		switch (count) {
+			case 1:
+				throw new IllegalArgumentException("Truncated Base64 input");
+			case 2:
+				dst[d++] = (byte) (bits >> 4);
+				break;
+			case 3:
+				dst[d++] = (byte) (bits >> 10);
+				dst[d++] = (byte) (bits >> 2);
+				break;
+			default:
+				break;
+		}
+		return d - dstOffset;
+	}
+
+	/**
+	 * @param toDecode encoded characters
+	 * @return number of bytes the given characters decode to
+	 * @throws IllegalArgumentException if the input is truncated
+	 */
+	static int decodedLength(CharSequence toDecode) {
+		int count = 0;
+		for (int i = 0; i < toDecode.length(); i++) {
+			if (valueOf(toDecode.charAt(i)) >= 0) {
+				count++;
+			}
+		}
+		if (count % 4 == 1) {
+			throw new IllegalArgumentException("Truncated Base64 input");
+		}
+		return count / 4 * 3 + Math.max(0, count % 4 - 1);
+	}
+
+	private static int lastBits(byte[] src, int offset, int remaining) {
+		int bits = (src[offset] & 0xFF) << 16;
+		if (remaining == 2) {
+			bits |= (src[offset + 1] & 0xFF) << 8;
+		}
+		return bits;
+	}
+
+	private static int valueOf(char c) {
+		return c < DECODE_TABLE.length ? DECODE_TABLE[c] : INVALID;
+	}
+
+	private static byte[] createDecodeTable() {
+		byte[] table = new byte[128];
+		Arrays.fill(table, INVALID);
+		for (int i = 0; i < 64; i++) {
+			table[STANDARD_ALPHABET.charAt(i)] = (byte) i;
+			table[URL_SAFE_ALPHABET.charAt(i)] = (byte) i;
+		}
+		table[PAD] = PADDING;
+		table[' '] = SKIP;
+		table['\t'] = SKIP;
+		table['\r'] = SKIP;
+		table['\n'] = SKIP;
+		return table;
+	}
+}
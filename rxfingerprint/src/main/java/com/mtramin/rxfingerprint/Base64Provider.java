@@ -1,19 +1,52 @@
-package com.mtramin.rxfingerprint;
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
 
-import android.util.Base64;
+package com.mtramin.rxfingerprint;
 
 /**
- * EncodingProvider that encodes and decodes from/to Base64
+ * EncodingProvider that encodes and decodes from/to Base64 as specified by RFC 4648. Encoded
+ * values are not wrapped into lines. Decoding accepts both the standard and the URL-safe alphabet
+ * as well as line breaks.
  */
-class Base64Provider implements EncodingProvider {
+public class Base64Provider implements EncodingProvider {
+
+	private final Base64Codec codec;
+
+	/**
+	 * Creates a provider that encodes with the standard Base64 alphabet.
+	 */
+	public Base64Provider() {
+		this(false);
+	}
+
+	/**
+	 * @param urlSafe {@code true} to encode with the URL-safe alphabet. Decoding accepts both
+	 *                alphabets.
+	 */
+	public Base64Provider(boolean urlSafe) {
+		codec = urlSafe ? Base64Codec.URL_SAFE : Base64Codec.STANDARD;
+	}
 
 	@Override
 	public String encode(byte[] toEncode) {
-		return Base64.encodeToString(toEncode, Base64.DEFAULT);
+		return codec.encode(toEncode, 0, toEncode.length);
 	}
 
 	@Override
 	public byte[] decode(String toDecode) {
-		return Base64.decode(toDecode, Base64.DEFAULT);
+		return Base64Codec.decode(toDecode);
 	}
 }
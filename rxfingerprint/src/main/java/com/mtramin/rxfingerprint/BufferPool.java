@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of temporary byte and char arrays for sensitive data.
+ * <p/>
+ * Arrays are handed out in size classes of powers of two and are cleared when they are returned,
+ * so no data outlives its use in a pooled array. Each size class keeps a bounded number of
+ * arrays. Requests larger than the biggest size class are served by new arrays that are not
+ * pooled.
+ */
+class BufferPool {
+	static final int MIN_SIZE = 64;
+	static final int MAX_SIZE = 16 * 1024;
+
+	private final List<Queue<byte[]>> byteArrays = new ArrayList<>();
+	private final List<Queue<char[]>> charArrays = new ArrayList<>();
+
+	/**
+	 * @param maxArraysPerSize number of arrays to keep per size class and type
+	 */
+	BufferPool(int maxArraysPerSize) {
+		for (int size = MIN_SIZE; size <= MAX_SIZE; size <<= 1) {
+			byteArrays.add(new ArrayBlockingQueue<byte[]>(maxArraysPerSize));
+			charArrays.add(new ArrayBlockingQueue<char[]>(maxArraysPerSize));
+		}
+	}
+
+	/**
+	 * @param minLength minimum length of the array
+	 * @return cleared array of at least the given length
+	 */
+	byte[] acquireBytes(int minLength) {
+		if (minLength > MAX_SIZE) {
+			return new byte[minLength];
+		}
+		int sizeClass = sizeClass(minLength);
+		byte[] array = byteArrays.get(sizeClass).poll();
+		return array != null ? array : new byte[MIN_SIZE << sizeClass];
+	}
+
+	/**
+	 * @param minLength minimum length of the array
+	 * @return cleared array of at least the given length
+	 */
+	char[] acquireChars(int minLength) {
+		if (minLength > MAX_SIZE) {
+			return new char[minLength];
+		}
+		int sizeClass = sizeClass(minLength);
+		char[] array = charArrays.get(sizeClass).poll();
+		return array != null ? array : new char[MIN_SIZE << sizeClass];
+	}
+
+	/**
+	 * Clears the given array and returns it to the pool.
+	 *
+	 * @param array array previously acquired from this pool
+	 */
+	void release(byte[] array) {
+		Arrays.fill(array, (byte) 0);
+		if (isPooledSize(array.length)) {
+			byteArrays.get(sizeClass(array.length)).offer(array);
+		}
+	}
+
+	/**
+	 * Clears the given array and returns it to the pool.
+	 *
+	 * @param array array previously acquired from this pool
+	 */
+	void release(char[] array) {
+		Arrays.fill(array, '\u0000');
+		if (isPooledSize(array.length)) {
+			charArrays.get(sizeClass(array.length)).offer(array);
+		}
+	}
+
+	private static boolean isPooledSize(int length) {
+		return length >= MIN_SIZE && length <= MAX_SIZE && Integer.bitCount(length) == 1;
+	}
+
+	private static int sizeClass(int length) {
+		if (length <= MIN_SIZE) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(length - 1) - Integer.numberOfTrailingZeros(MIN_SIZE);
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.Nullable;
+
+/**
+ * Holds the {@link Handler} that receives the callbacks of the fingerprint sensor. Finalizing the
+ * crypto operation of a successful authentication happens on its thread as well.
+ * <p/>
+ * Without a configured {@link Handler} the callbacks are received on the subscribing thread.
+ */
+class CallbackHandler {
+	private static final String THREAD_NAME = "RxFingerprint-Callbacks";
+
+	@Nullable private static volatile Handler handler;
+	@Nullable private static Handler dedicatedHandler;
+
+	@Nullable
+	static Handler get() {
+		return handler;
+	}
+
+	static void set(@Nullable Handler handler) {
+		CallbackHandler.handler = handler;
+	}
+
+	/**
+	 * @return handler of a background thread owned by RxFingerprint. The thread is started on
+	 * first use and kept for the lifetime of the process.
+	 */
+	static synchronized Handler dedicated() {
+		if (dedicatedHandler == null) {
+			HandlerThread thread = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+			thread.start();
+			dedicatedHandler = new Handler(thread.getLooper());
+		}
+		return dedicatedHandler;
+	}
+
+	private CallbackHandler() {
+		// hide
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * Runs several independent values through a single AES/CBC/PKCS7 {@link Cipher} operation.
+ * <p/>
+ * A {@link Cipher} bound to fingerprint authentication can only be used for one operation. In CBC
+ * mode every ciphertext block only depends on the previous ciphertext block though. Each value is
+ * therefore padded on its own and the ciphertext of the whole stream is split up again. Every
+ * value can afterwards be decrypted on its own, using the last ciphertext block of the previous
+ * value as its initialization vector.
+ * <p/>
+ * The same property allows decrypting several values with a single operation. Values that were
+ * not encrypted together are re-chained by feeding their initialization vector as an additional
+ * ciphertext block whose output is discarded.
+ */
+class CbcChaining {
+	static final int BLOCK_SIZE = 16;
+
+	/**
+	 * Encrypts all given values with the given {@link Cipher}.
+	 *
+	 * @param cipher     cipher initialized for AES/CBC/PKCS7 encryption
+	 * @param plainTexts values to encrypt. Will be cleared after encryption.
+	 * @return pairs of encrypted bytes and initialization vector for each value
+	 */
+	static List<byte[][]> encrypt(Cipher cipher, List<byte[]> plainTexts) throws GeneralSecurityException {
+		byte[] iv = cipher.getParameters().getParameterSpec(IvParameterSpec.class).getIV();
+
+		ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+		int[] lengths = new int[plainTexts.size()];
+		for (int i = 0; i < plainTexts.size(); i++) {
+			byte[] padded = pad(plainTexts.get(i));
+			lengths[i] = padded.length;
+			write(cipherText, cipher.update(padded));
+
+			Arrays.fill(padded, (byte) 0);
+			Arrays.fill(plainTexts.get(i), (byte) 0);
+		}
+		// The final block only contains the padding of the whole stream and is not needed
+		write(cipherText, cipher.doFinal());
+
+		byte[] output = cipherText.toByteArray();
+		List<byte[][]> results = new ArrayList<>(plainTexts.size());
+		int offset = 0;
+		for (int length : lengths) {
+			byte[] encrypted = Arrays.copyOfRange(output, offset, offset + length);
+			results.add(new byte[][]{encrypted, iv});
+
+			iv = Arrays.copyOfRange(encrypted, length - BLOCK_SIZE, length);
+			offset += length;
+		}
+		return results;
+	}
+
+	/**
+	 * Decrypts all given values with the given {@link Cipher}. The values do not need to be
+	 * encrypted by {@link #encrypt(Cipher, List)}. If a value does not continue the chain of the
+	 * previous value, its initialization vector is fed to the {@link Cipher} first to restore the
+	 * chain.
+	 *
+	 * @param cipher cipher initialized for AES/CBC/PKCS7 decryption with the initialization vector
+	 *               of the first value
+	 * @param values pairs of encrypted bytes and initialization vector for each value
+	 * @return decrypted bytes of each value
+	 */
+	static List<byte[]> decrypt(Cipher cipher, List<byte[][]> values) throws GeneralSecurityException {
+		ClearableOutputStream plainText = new ClearableOutputStream();
+		int[] skipped = new int[values.size()];
+		byte[] previousBlock = values.get(0)[1];
+		for (int i = 0; i < values.size(); i++) {
+			byte[] encrypted = values.get(i)[0];
+			byte[] iv = values.get(i)[1];
+			if (encrypted.length == 0 || encrypted.length % BLOCK_SIZE != 0 || iv.length != BLOCK_SIZE) {
+				throw new IllegalBlockSizeException("Invalid length of encrypted value at index " + i);
+			}
+
+			if (!Arrays.equals(previousBlock, iv)) {
+				write(plainText, cipher.update(iv));
+				skipped[i] = BLOCK_SIZE;
+			}
+			write(plainText, cipher.update(encrypted));
+			previousBlock = Arrays.copyOfRange(encrypted, encrypted.length - BLOCK_SIZE, encrypted.length);
+		}
+		// The padding of the last value is removed by the cipher
+		write(plainText, cipher.doFinal());
+
+		byte[] output = plainText.toByteArray();
+		List<byte[]> results = new ArrayList<>(values.size());
+		int offset = 0;
+		for (int i = 0; i < values.size(); i++) {
+			offset += skipped[i];
+			if (i == values.size() - 1) {
+				results.add(Arrays.copyOfRange(output, offset, output.length));
+			} else {
+				int length = values.get(i)[0].length;
+				results.add(unpad(output, offset, length));
+				offset += length;
+			}
+		}
+		Arrays.fill(output, (byte) 0);
+		plainText.clear();
+		return results;
+	}
+
+	static byte[] pad(byte[] input) {
+		int padding = BLOCK_SIZE - input.length % BLOCK_SIZE;
+		byte[] padded = Arrays.copyOf(input, input.length + padding);
+		Arrays.fill(padded, input.length, padded.length, (byte) padding);
+		return padded;
+	}
+
+	private static byte[] unpad(byte[] input, int offset, int length) throws BadPaddingException {
+		int padding = input[offset + length - 1] & 0xFF;
+		if (padding < 1 || padding > BLOCK_SIZE) {
+			throw new BadPaddingException("Invalid padding");
+		}
+		for (int i = offset + length - padding; i < offset + length; i++) {
+			if ((input[i] & 0xFF) != padding) {
+				throw new BadPaddingException("Invalid padding");
+			}
+		}
+		return Arrays.copyOfRange(input, offset, offset + length - padding);
+	}
+
+	private static void write(ByteArrayOutputStream outputStream, byte[] bytes) {
+		if (bytes != null) {
+			outputStream.write(bytes, 0, bytes.length);
+			Arrays.fill(bytes, (byte) 0);
+		}
+	}
+
+	private static class ClearableOutputStream extends ByteArrayOutputStream {
+		void clear() {
+			Arrays.fill(buf, (byte) 0);
+			reset();
+		}
+	}
+
+	private CbcChaining() {
+		// hide
+	}
+}
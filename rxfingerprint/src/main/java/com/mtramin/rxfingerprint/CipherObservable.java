@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Marvin Ramin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.SuppressLint;
+import android.hardware.fingerprint.FingerprintManager.AuthenticationResult;
+import android.hardware.fingerprint.FingerprintManager.CryptoObject;
+import android.security.keystore.UserNotAuthenticatedException;
+import android.support.annotation.Nullable;
+
+import javax.crypto.Cipher;
+
+import io.reactivex.ObservableEmitter;
+
+/**
+ * Base observable for operations with a {@link Cipher} whose key requires user authentication.
+ * <p/>
+ * Keys that require authentication for every use are authorized by authenticating with a
+ * {@link CryptoObject} of the {@link Cipher}. Keys with an authentication validity duration can be
+ * used right away as long as the user authenticated recently enough, without starting the
+ * fingerprint sensor. Once that session expired the user authenticates without a
+ * {@link CryptoObject} and the {@link Cipher} is initialized again afterwards.
+ */
+@SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
+abstract class CipherObservable<T> extends FingerprintObservable<T> {
+
+	private final CipherProvider cipherProvider;
+
+	CipherObservable(FingerprintApiWrapper fingerprintApiWrapper, CipherProvider cipherProvider) {
+		super(fingerprintApiWrapper);
+		this.cipherProvider = cipherProvider;
+	}
+
+	@Nullable
+	@Override
+	protected final CryptoObject initCryptoObject(ObservableEmitter<T> emitter) {
+		try {
+			Cipher cipher = initCipher();
+			if (cipherProvider.isTimeBound()) {
+				// The user authenticated recently enough, no need to start the sensor
+				onCipherAuthenticated(emitter, cipher);
+				return null;
+			}
+			return new CryptoObject(cipher);
+		} catch (UserNotAuthenticatedException e) {
+			// Session expired, the cipher is initialized again after authentication
+			return null;
+		} catch (Exception e) {
+			emitter.onError(e);
+			return null;
+		}
+	}
+
+	@Nullable
+	@Override
+	final CryptoObject prepareCryptoObject() throws Exception {
+		if (cipherProvider.isTimeBound()) {
+			// Nothing to prepare, the operation does not start the sensor while the session is valid
+			return null;
+		}
+		return new CryptoObject(initCipher());
+	}
+
+	@Override
+	protected final void onAuthenticationSucceeded(ObservableEmitter<T> emitter, AuthenticationResult result) {
+		Cipher cipher;
+		CryptoObject cryptoObject = result.getCryptoObject();
+		if (cryptoObject != null) {
+			cipher = cryptoObject.getCipher();
+		} else {
+			try {
+				cipher = initCipher();
+			} catch (Exception e) {
+				emitter.onError(e);
+				return;
+			}
+		}
+		onCipherAuthenticated(emitter, cipher);
+	}
+
+	/**
+	 * @return a new {@link Cipher} initialized for the operation of this observable
+	 */
+	abstract Cipher initCipher() throws Exception;
+
+	/**
+	 * Executes the operation of this observable with the authenticated {@link Cipher}. Should
+	 * return the result via the given emitter and call {@link ObservableEmitter#onComplete()}.
+	 *
+	 * @param emitter current subscriber
+	 * @param cipher  authenticated cipher
+	 */
+	abstract void onCipherAuthenticated(ObservableEmitter<T> emitter, Cipher cipher);
+}
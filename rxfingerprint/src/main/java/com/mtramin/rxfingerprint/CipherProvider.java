@@ -31,29 +31,43 @@ import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
-import java.util.Enumeration;
 
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 
-abstract class CipherProvider {
+abstract class CipherProvider implements KeyProvider {
 	static final String ANDROID_KEY_STORE = "AndroidKeyStore";
 	private static final String DEFAULT_KEY_NAME = "rxfingerprint_default";
 
 	final String keyName;
-	final KeyStore keyStore;
 	final boolean invalidatedByBiometricEnrollment;
+	final int authenticationValiditySeconds;
 
 	CipherProvider(@NonNull Context context, @Nullable String keyName, boolean keyInvalidatedByBiometricEnrollment) throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException {
+		this(context, keyName, keyInvalidatedByBiometricEnrollment, 0);
+	}
+
+	/**
+	 * @param authenticationValiditySeconds duration in seconds for which a newly created key can be
+	 *                                      used after the user authenticated. {@code 0} requires
+	 *                                      authentication for every use of the key.
+	 */
+	CipherProvider(@NonNull Context context, @Nullable String keyName, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException {
+		this.keyName = keyNameOrDefault(context, keyName);
+		invalidatedByBiometricEnrollment = keyInvalidatedByBiometricEnrollment;
+		this.authenticationValiditySeconds = authenticationValiditySeconds;
+		KeyStoreSession.registerMemoryCallbacks(context);
+	}
+
+	/**
+	 * @return the given key name or the default key name of the application if none is given
+	 */
+	static String keyNameOrDefault(@NonNull Context context, @Nullable String keyName) {
 		if (keyName == null) {
-			this.keyName = ContextUtils.getPackageName(context) + "." + DEFAULT_KEY_NAME;
-		} else {
-			this.keyName = keyName;
+			return ContextUtils.getPackageName(context) + "." + DEFAULT_KEY_NAME;
 		}
-		invalidatedByBiometricEnrollment = keyInvalidatedByBiometricEnrollment;
-		keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
-		keyStore.load(null);
+		return keyName;
 	}
 
 	/**
@@ -61,12 +75,24 @@ abstract class CipherProvider {
 	 */
 	abstract Cipher cipherForEncryption() throws GeneralSecurityException, IOException;
 
+	/**
+	 * Generates a new key in the {@link KeyStore} under the key name of this provider.
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	abstract void generateKey() throws GeneralSecurityException;
+
 	@TargetApi(Build.VERSION_CODES.M)
 	abstract Cipher createCipher() throws NoSuchPaddingException, NoSuchAlgorithmException;
 
 	@NonNull
 	@TargetApi(Build.VERSION_CODES.M)
 	static KeyGenParameterSpec.Builder getKeyGenParameterSpecBuilder(String keyName, String blockModes, String encryptionPaddings, boolean invalidatedByBiometricEnrollment) {
+		return getKeyGenParameterSpecBuilder(keyName, blockModes, encryptionPaddings, invalidatedByBiometricEnrollment, 0);
+	}
+
+	@NonNull
+	@TargetApi(Build.VERSION_CODES.M)
+	static KeyGenParameterSpec.Builder getKeyGenParameterSpecBuilder(String keyName, String blockModes, String encryptionPaddings, boolean invalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
 		KeyGenParameterSpec.Builder builder = new KeyGenParameterSpec.Builder(keyName,
 				KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
 				.setBlockModes(blockModes)
@@ -75,6 +101,9 @@ abstract class CipherProvider {
 		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
 			builder.setInvalidatedByBiometricEnrollment(invalidatedByBiometricEnrollment);
 		}
+		if (authenticationValiditySeconds > 0) {
+			builder.setUserAuthenticationValidityDurationSeconds(authenticationValiditySeconds);
+		}
 		return builder;
 	}
 
@@ -89,6 +118,43 @@ abstract class CipherProvider {
 		}
 	}
 
+	/**
+	 * @return {@code true} if the key of this provider can be used for a duration after the user
+	 * authenticated, instead of requiring authentication for every use
+	 */
+	boolean isTimeBound() throws GeneralSecurityException, IOException {
+		return false;
+	}
+
+	/**
+	 * Makes sure the key of this provider exists and its handles are cached.
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	abstract void findOrCreateKey() throws GeneralSecurityException, IOException;
+
+	/**
+	 * Prepares everything needed for a crypto operation of this provider apart from initializing
+	 * the {@link Cipher}. Loads the security providers of the {@link Cipher} and creates a
+	 * missing key, which can take considerable time on first use.
+	 */
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	public void prewarm() throws GeneralSecurityException, IOException {
+		createCipher();
+		findOrCreateKey();
+	}
+
+	/**
+	 * Replaces the key of this provider with a newly generated one. Data encrypted with the
+	 * previous key cannot be decrypted anymore.
+	 */
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	public void rotateKey() throws IOException, GeneralSecurityException {
+		removeKey(keyName);
+		generateKey();
+	}
+
 	// https://github.com/googlesamples/android-FingerprintDialog/issues/21
 	// https://issuetracker.google.com/issues/65578763
 	@TargetApi(Build.VERSION_CODES.M)
@@ -111,23 +177,11 @@ abstract class CipherProvider {
 
 	private static void removeKey(String keyName) throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException {
 		if (keyExists(keyName)) {
-			KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
-			keyStore.load(null);
-			keyStore.deleteEntry(keyName);
+			KeyStoreSession.deleteEntry(keyName);
 		}
 	}
 
 	static boolean keyExists(String keyName) throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException {
-		KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
-		keyStore.load(null);
-		Enumeration<String> aliases = keyStore.aliases();
-
-		while (aliases.hasMoreElements()) {
-			if (keyName.equals(aliases.nextElement())) {
-				return true;
-			}
-		}
-
-		return false;
+		return KeyStoreSession.containsAlias(keyName);
 	}
 }
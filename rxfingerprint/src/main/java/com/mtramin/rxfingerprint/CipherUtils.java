@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.Cipher;
+
+/**
+ * Runs {@link Cipher} operations on {@link ByteBuffer}s without copying heap buffers.
+ */
+class CipherUtils {
+
+	/**
+	 * Finishes the operation of the given {@link Cipher} with the remaining bytes of the given
+	 * buffer. The position of the buffer is not modified.
+	 *
+	 * @param cipher initialized cipher
+	 * @param input  input of the operation
+	 * @return output of the operation
+	 */
+	static byte[] doFinal(Cipher cipher, ByteBuffer input) throws GeneralSecurityException {
+		if (input.hasArray()) {
+			byte[] array = input.array();
+			int offset = input.arrayOffset() + input.position();
+			if (offset == 0 && input.remaining() == array.length) {
+				return cipher.doFinal(array);
+			}
+			return cipher.doFinal(array, offset, input.remaining());
+		}
+
+		ByteBuffer output = ByteBuffer.allocate(cipher.getOutputSize(input.remaining()));
+		cipher.doFinal(input.duplicate(), output);
+		if (output.position() == output.capacity()) {
+			return output.array();
+		}
+		byte[] result = Arrays.copyOf(output.array(), output.position());
+		Arrays.fill(output.array(), (byte) 0);
+		return result;
+	}
+
+	/**
+	 * Finishes the operation of the given {@link Cipher} with the remaining bytes of the given
+	 * buffer and writes the output into a new direct buffer.
+	 *
+	 * @param cipher initialized cipher
+	 * @param input  input of the operation
+	 * @return output of the operation
+	 */
+	static SecureBuffer doFinalSecure(Cipher cipher, ByteBuffer input) throws GeneralSecurityException {
+		ByteBuffer output = ByteBuffer.allocateDirect(cipher.getOutputSize(input.remaining()));
+		try {
+			cipher.doFinal(input.duplicate(), output);
+		} catch (GeneralSecurityException | RuntimeException e) {
+			output.clear();
+			SecureBuffer.wipe(output);
+			throw e;
+		}
+		output.flip();
+		return new SecureBuffer(output);
+	}
+
+	/**
+	 * @param values binary values
+	 * @return the given values wrapped in heap buffers
+	 */
+	static List<ByteBuffer> wrap(List<byte[]> values) {
+		List<ByteBuffer> buffers = new ArrayList<>(values.size());
+		for (byte[] value : values) {
+			buffers.add(value == null ? null : ByteBuffer.wrap(value));
+		}
+		return buffers;
+	}
+
+	/**
+	 * @param buffer buffer to read
+	 * @return the backing array if it is exactly the remaining content of the given buffer,
+	 * otherwise a copy of the remaining content
+	 */
+	static byte[] toArray(ByteBuffer buffer) {
+		if (buffer.hasArray() && buffer.arrayOffset() + buffer.position() == 0 && buffer.remaining() == buffer.array().length) {
+			return buffer.array();
+		}
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private CipherUtils() {
+		// hide
+	}
+}
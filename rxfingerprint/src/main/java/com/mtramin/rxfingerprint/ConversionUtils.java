@@ -19,35 +19,72 @@ package com.mtramin.rxfingerprint;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.util.Arrays;
 
 /**
  * Data conversion utility methods
+ * <p/>
+ * Encoders and decoders are cached per thread. Intermediate buffers are taken from a
+ * {@link BufferPool} and cleared before they are returned, so only the resulting array is
+ * allocated per conversion.
  */
 class ConversionUtils {
 
-  // based on https://stackoverflow.com/a/9670279/115145
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final BufferPool BUFFER_POOL = new BufferPool(4);
 
-  static byte[] toBytes(char[] chars) {
-    CharBuffer charBuffer = CharBuffer.wrap(chars);
-    ByteBuffer byteBuffer = Charset.forName("UTF-8").encode(charBuffer);
-    byte[] bytes = Arrays.copyOfRange(byteBuffer.array(), byteBuffer.position(), byteBuffer.limit());
+  private static final ThreadLocal<CharsetEncoder> ENCODER = new ThreadLocal<CharsetEncoder>() {
+    @Override
+    protected CharsetEncoder initialValue() {
+      return UTF_8.newEncoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+  };
 
-    Arrays.fill(charBuffer.array(), '\u0000'); // clear the cleartext
-    Arrays.fill(byteBuffer.array(), (byte) 0); // clear the ciphertext
+  private static final ThreadLocal<CharsetDecoder> DECODER = new ThreadLocal<CharsetDecoder>() {
+    @Override
+    protected CharsetDecoder initialValue() {
+      return UTF_8.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+  };
 
-    return bytes;
+  /**
+   * Encodes the given characters as UTF-8. The given characters are cleared afterwards.
+   */
+  static byte[] toBytes(char[] chars) {
+    CharsetEncoder encoder = ENCODER.get().reset();
+    byte[] buffer = BUFFER_POOL.acquireBytes((int) Math.ceil(chars.length * (double) encoder.maxBytesPerChar()));
+    try {
+      ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+      encoder.encode(CharBuffer.wrap(chars), byteBuffer, true);
+      encoder.flush(byteBuffer);
+      return Arrays.copyOf(buffer, byteBuffer.position());
+    } finally {
+      Arrays.fill(chars, '\u0000'); // clear the cleartext
+      BUFFER_POOL.release(buffer);
+    }
   }
 
+  /**
+   * Decodes the given UTF-8 bytes. The given bytes are cleared afterwards.
+   */
   static char[] toChars(byte[] bytes) {
-    Charset charset = Charset.forName("UTF-8");
-    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
-    CharBuffer charBuffer = charset.decode(byteBuffer);
-    char[] chars = Arrays.copyOf(charBuffer.array(), charBuffer.limit());
-
-    Arrays.fill(charBuffer.array(), '\u0000'); // clear the cleartext
-    Arrays.fill(byteBuffer.array(), (byte) 0); // clear the ciphertext
-
-    return chars;
+    CharsetDecoder decoder = DECODER.get().reset();
+    char[] buffer = BUFFER_POOL.acquireChars((int) Math.ceil(bytes.length * (double) decoder.maxCharsPerByte()));
+    try {
+      CharBuffer charBuffer = CharBuffer.wrap(buffer);
+      decoder.decode(ByteBuffer.wrap(bytes), charBuffer, true);
+      decoder.flush(charBuffer);
+      return Arrays.copyOf(buffer, charBuffer.position());
+    } finally {
+      Arrays.fill(bytes, (byte) 0); // clear the cleartext
+      BUFFER_POOL.release(buffer);
+    }
   }
 }
@@ -16,56 +16,209 @@
 
 package com.mtramin.rxfingerprint;
 
+import android.support.annotation.Nullable;
+
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
 /**
  * Data of a cryptographic operation with RxFingerprint.
+ * <p/>
+ * The data is stored in a versioned binary container. Its String representation is the encoded
+ * container. The layout is:
+ * <pre>
+ * [magic (1 byte)][version (1 byte)][algorithm (1 byte)][hash of the key alias (4 bytes)]
+ * [length of initialization vector (1 byte)][initialization vector][message]
+ * </pre>
+ * The header identifies the {@link EncryptionMethod} and key that were used, so values can be
+ * decrypted without knowing their method upfront. Parsing a container does not copy its message.
+ * <p/>
+ * Strings in the legacy format of previous versions of RxFingerprint, the encoded message and
+ * initialization vector separated by {@link #SEPARATOR} or only the encoded message for
+ * {@link EncryptionMethod#RSA}, are still supported. They are always encoded in standard Base64.
  */
 class CryptoData {
 	static final String SEPARATOR = "-_-";
+	static final byte MAGIC = 0x52;
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	private static final int UNKNOWN_ALIAS = 0;
 
-	private final EncodingProvider encodingProvider;
+	private static final byte ALGORITHM_AES = 1;
+	private static final byte ALGORITHM_RSA = 2;
+	private static final byte ALGORITHM_AES_ENVELOPE = 3;
+	private static final byte ALGORITHM_AES_GCM = 4;
+	private static final byte ALGORITHM_EC = 5;
+	private static final byte ALGORITHM_RSA_HYBRID = 6;
 
-    private final String messageEncoded;
-    private final String ivEncoded;
+	private final EncodingProvider encodingProvider;
+	private final EncryptionMethod method;
+	private final int aliasHash;
+	private final byte[] iv;
+	private final ByteBuffer message;
+	private final boolean legacy;
 
-    private CryptoData(EncodingProvider encodingProvider, byte[] messageBytes, byte[] ivBytes) {
-		this.encodingProvider = encodingProvider;
-		messageEncoded = encodingProvider.encode(messageBytes);
-		ivEncoded = encodingProvider.encode(ivBytes);
-    }
+	private byte[] binary;
 
-    private CryptoData(EncodingProvider encodingProvider, String message, String iv) {
+	private CryptoData(EncodingProvider encodingProvider, EncryptionMethod method, int aliasHash, ByteBuffer message, byte[] iv, boolean legacy) {
 		this.encodingProvider = encodingProvider;
-		messageEncoded = message;
-		ivEncoded = iv;
-    }
+		this.method = method;
+		this.aliasHash = aliasHash;
+		this.message = message;
+		this.iv = iv;
+		this.legacy = legacy;
+	}
 
-    /**
-	 * Sets up data from an input string.
+	/**
+	 * Sets up data from an input string. The method of legacy strings is assumed to be
+	 * {@link EncryptionMethod#AES}.
 	 *
 	 * @param input input string that was previously encrypted by RxFingerprint
 	 * @return parsed data
 	 */
 	static CryptoData fromString(EncodingProvider encodingProvider, String input) throws CryptoDataException {
-		verifyCryptoDataString(input);
+		return fromString(encodingProvider, input, EncryptionMethod.AES);
+	}
+
+	/**
+	 * Sets up data from an input string.
+	 *
+	 * @param input        input string that was previously encrypted by RxFingerprint
+	 * @param legacyMethod method to assume if the input is in the legacy format without header
+	 * @return parsed data
+	 */
+	static CryptoData fromString(EncodingProvider encodingProvider, String input, EncryptionMethod legacyMethod) throws CryptoDataException {
+		ByteBuffer bytes;
+		try {
+			bytes = ByteBuffer.wrap(encodingProvider.decode(input));
+		} catch (IllegalArgumentException e) {
+			bytes = null;
+		}
+		if (bytes != null && isContainer(bytes)) {
+			return parse(encodingProvider, bytes);
+		}
+
+		// URL-safe Base64 may contain the separator by chance, so the legacy format is only
+		// assumed once the input did not hold a container. Legacy values were always written in
+		// standard Base64, regardless of the configured EncodingProvider.
+		if (input.contains(SEPARATOR)) {
+			String[] inputParams = input.split(SEPARATOR);
+			if (inputParams.length != 2 || !isStandardBase64(inputParams[0]) || !isStandardBase64(inputParams[1])) {
+				throw CryptoDataException.fromCryptoDataString(input);
+			}
+			return new CryptoData(encodingProvider, legacyMethod, UNKNOWN_ALIAS,
+					ByteBuffer.wrap(decodeLegacy(inputParams[0], input)),
+					decodeLegacy(inputParams[1], input),
+					true);
+		}
+
+		if (legacyMethod == EncryptionMethod.RSA && isStandardBase64(input)) {
+			return new CryptoData(encodingProvider, legacyMethod, UNKNOWN_ALIAS, ByteBuffer.wrap(decodeLegacy(input, input)), new byte[0], true);
+		}
+		throw CryptoDataException.fromCryptoDataString(input);
+	}
+
+	private static byte[] decodeLegacy(String encoded, String input) throws CryptoDataException {
+		try {
+			return Base64Codec.decode(encoded);
+		} catch (IllegalArgumentException e) {
+			throw CryptoDataException.fromCryptoDataString(input);
+		}
+	}
 
-		String[] inputParams = input.split(SEPARATOR);
-		return new CryptoData(encodingProvider, inputParams[0], inputParams[1]);
+	/**
+	 * @param input part of a legacy input string
+	 * @return {@code true} if the given part only consists of characters of the standard Base64 alphabet
+	 */
+	private static boolean isStandardBase64(String input) {
+		if (input.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < input.length(); i++) {
+			char c = input.charAt(i);
+			boolean valid = (c >= 'A' && c <= 'Z')
+					|| (c >= 'a' && c <= 'z')
+					|| (c >= '0' && c <= '9')
+					|| c == '+' || c == '/' || c == '='
+					|| c == '\r' || c == '\n';
+			if (!valid) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
-	 * Sets up data from encrypted byte that resulted from encryption operation.
+	 * Parses all given input strings in parallel on the {@link Schedulers#computation()}
+	 * scheduler.
+	 *
+	 * @param inputs       input strings that were previously encrypted by RxFingerprint
+	 * @param legacyMethod method to assume for inputs in the legacy format without header
+	 * @return Flowable of the parsed data in the order of the given inputs
+	 */
+	static Flowable<CryptoData> fromStrings(final EncodingProvider encodingProvider, Iterable<String> inputs, final EncryptionMethod legacyMethod) {
+		return Flowable.fromIterable(inputs)
+				.concatMapEager(new Function<String, Publisher<CryptoData>>() {
+					@Override
+					public Publisher<CryptoData> apply(final String input) throws Exception {
+						return Flowable.fromCallable(new Callable<CryptoData>() {
+							@Override
+							public CryptoData call() throws Exception {
+								return fromString(encodingProvider, input, legacyMethod);
+							}
+						}).subscribeOn(Schedulers.computation());
+					}
+				});
+	}
+
+	/**
+	 * Sets up data in the legacy format from encrypted bytes.
 	 *
 	 * @param messageBytes encrypted bytes of message
 	 * @param ivBytes      initialization vector in bytes
 	 * @return parsed data
 	 */
 	static CryptoData fromBytes(EncodingProvider encodingProviders, byte[] messageBytes, byte[] ivBytes) {
-		return new CryptoData(encodingProviders, messageBytes, ivBytes);
+		return new CryptoData(encodingProviders, EncryptionMethod.AES, UNKNOWN_ALIAS, ByteBuffer.wrap(messageBytes), ivBytes, true);
+	}
+
+	/**
+	 * Sets up data from encrypted bytes that resulted from an encryption operation.
+	 *
+	 * @param method       method used for the encryption
+	 * @param keyName      alias of the key used for the encryption
+	 * @param messageBytes encrypted bytes of message
+	 * @param ivBytes      initialization vector in bytes
+	 * @return data to store in a container
+	 */
+	static CryptoData fromBytes(EncodingProvider encodingProvider, EncryptionMethod method, String keyName, byte[] messageBytes, byte[] ivBytes) {
+		return new CryptoData(encodingProvider, method, aliasHash(keyName), ByteBuffer.wrap(messageBytes), ivBytes, false);
 	}
 
 	/**
-	 * Checks if the given input is a valid encrypted string. Will throw an exception if the input
-	 * is invalid.
+	 * Sets up data from its binary container created by {@link #toBinary()}. The message is not
+	 * copied, so the given array must not be modified while the data is in use.
+	 *
+	 * @param input binary data that was previously encrypted by RxFingerprint
+	 * @return parsed data
+	 */
+	static CryptoData fromBinary(EncodingProvider encodingProvider, byte[] input) throws CryptoDataException {
+		ByteBuffer buffer = ByteBuffer.wrap(input);
+		if (!isContainer(buffer)) {
+			throw CryptoDataException.fromBinary();
+		}
+		return parse(encodingProvider, buffer);
+	}
+
+	/**
+	 * Checks if the given input is a valid encrypted string in the legacy format. Will throw an
+	 * exception if the input is invalid.
 	 *
 	 * @param input input to verify
 	 */
@@ -75,22 +228,174 @@ class CryptoData {
 		}
 	}
 
-    @Override
-    public String toString() {
-        return messageEncoded + SEPARATOR + ivEncoded;
-    }
+	/**
+	 * @param input bytes to check, starting at the position of the buffer
+	 * @return {@code true} if the given bytes hold a container with a valid header
+	 */
+	static boolean isContainer(ByteBuffer input) {
+		int start = input.position();
+		if (input.remaining() <= HEADER_SIZE || input.get(start) != MAGIC || input.get(start + 1) != VERSION) {
+			return false;
+		}
+		EncryptionMethod method = methodOf(input.get(start + 2));
+		int ivLength = input.get(start + HEADER_SIZE - 1) & 0xFF;
+		return method != null
+				&& ivLength == ivLengthOf(method)
+				&& input.remaining() > HEADER_SIZE + ivLength;
+	}
+
+	private static CryptoData parse(EncodingProvider encodingProvider, ByteBuffer input) {
+		ByteBuffer buffer = input.duplicate();
+		EncryptionMethod method = methodOf(buffer.get(buffer.position() + 2));
+		buffer.position(buffer.position() + 3);
+		int aliasHash = buffer.getInt();
+		byte[] iv = new byte[buffer.get() & 0xFF];
+		buffer.get(iv);
+
+		return new CryptoData(encodingProvider, method, aliasHash, buffer.slice(), iv, false);
+	}
+
+	/**
+	 * Makes sure this data was encrypted with the given method and key.
+	 *
+	 * @param method  method used for the decryption
+	 * @param keyName alias of the key used for the decryption
+	 */
+	void verify(EncryptionMethod method, String keyName) throws CryptoDataException {
+		if (this.method != method) {
+			throw CryptoDataException.fromMethod(this.method, method);
+		}
+		if (aliasHash != UNKNOWN_ALIAS && aliasHash != aliasHash(keyName)) {
+			throw CryptoDataException.fromKeyName(keyName);
+		}
+	}
 
-    /**
-     * @return initialization vector of the crypto operation
-     */
-     byte[] getIv() {
-        return encodingProvider.decode(ivEncoded);
-    }
+	@Override
+	public String toString() {
+		if (legacy) {
+			String messageEncoded = Base64Codec.STANDARD.encode(getMessage());
+			if (iv.length == 0) {
+				return messageEncoded;
+			}
+			return messageEncoded + SEPARATOR + Base64Codec.STANDARD.encode(iv);
+		}
+		return encodingProvider.encode(toBinary());
+	}
+
+	/**
+	 * @return binary container of this data
+	 */
+	byte[] toBinary() {
+		if (binary == null) {
+			ByteBuffer messageBuffer = message.duplicate();
+			binary = ByteBuffer.allocate(HEADER_SIZE + iv.length + messageBuffer.remaining())
+					.put(MAGIC)
+					.put(VERSION)
+					.put(algorithmOf(method))
+					.putInt(aliasHash)
+					.put((byte) iv.length)
+					.put(iv)
+					.put(messageBuffer)
+					.array();
+		}
+		return binary;
+	}
 
-    /**
-     * @return message of the crypto operation
-     */
-     byte[] getMessage() {
-        return encodingProvider.decode(messageEncoded);
-    }
+	/**
+	 * @return provider that encodes the String representation of this data
+	 */
+	EncodingProvider getEncodingProvider() {
+		return encodingProvider;
+	}
+
+	/**
+	 * @return method of the crypto operation
+	 */
+	EncryptionMethod getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return initialization vector of the crypto operation
+	 */
+	byte[] getIv() {
+		return iv;
+	}
+
+	/**
+	 * @return message of the crypto operation. Is only copied if the data was parsed from a
+	 * container.
+	 */
+	byte[] getMessage() {
+		if (message.arrayOffset() == 0 && message.position() == 0 && message.remaining() == message.array().length) {
+			return message.array();
+		}
+		byte[] bytes = new byte[message.remaining()];
+		message.duplicate().get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * @return view of the message of the crypto operation without copying it
+	 */
+	ByteBuffer getMessageBuffer() {
+		return message.duplicate();
+	}
+
+	static int aliasHash(@Nullable String keyName) {
+		return keyName == null ? UNKNOWN_ALIAS : keyName.hashCode();
+	}
+
+	private static byte algorithmOf(EncryptionMethod method) {
+		switch (method) {
+			case AES:
+				return ALGORITHM_AES;
+			case RSA:
+				return ALGORITHM_RSA;
+			case AES_ENVELOPE:
+				return ALGORITHM_AES_ENVELOPE;
+			case AES_GCM:
+				return ALGORITHM_AES_GCM;
+			case EC:
+				return ALGORITHM_EC;
+			case RSA_HYBRID:
+				return ALGORITHM_RSA_HYBRID;
+			default:
+				throw new IllegalArgumentException("Unknown encryption method: " + method);
+		}
+	}
+
+	@Nullable
+	private static EncryptionMethod methodOf(byte algorithm) {
+		switch (algorithm) {
+			case ALGORITHM_AES:
+				return EncryptionMethod.AES;
+			case ALGORITHM_RSA:
+				return EncryptionMethod.RSA;
+			case ALGORITHM_AES_ENVELOPE:
+				return EncryptionMethod.AES_ENVELOPE;
+			case ALGORITHM_AES_GCM:
+				return EncryptionMethod.AES_GCM;
+			case ALGORITHM_EC:
+				return EncryptionMethod.EC;
+			case ALGORITHM_RSA_HYBRID:
+				return EncryptionMethod.RSA_HYBRID;
+			default:
+				return null;
+		}
+	}
+
+	private static int ivLengthOf(EncryptionMethod method) {
+		switch (method) {
+			case RSA:
+			case RSA_HYBRID:
+				return 0;
+			case AES_GCM:
+				return AesGcmCipherProvider.IV_SIZE;
+			case EC:
+				return EciesData.NONCE_SIZE;
+			default:
+				return CbcChaining.BLOCK_SIZE;
+		}
+	}
 }
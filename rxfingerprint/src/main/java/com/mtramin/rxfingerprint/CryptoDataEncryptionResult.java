@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015 Marvin Ramin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
+
+/**
+ * Successful {@link FingerprintEncryptionResult} backed by {@link CryptoData}. Exposes the binary
+ * representation of the data and only encodes it to a String when it is accessed.
+ */
+class CryptoDataEncryptionResult extends FingerprintEncryptionResult {
+
+	CryptoDataEncryptionResult(CryptoData cryptoData) {
+		super(cryptoData.toBinary(), cryptoData.getEncodingProvider());
+	}
+}
@@ -23,7 +23,15 @@ import static com.mtramin.rxfingerprint.CryptoData.SEPARATOR;
  */
 class CryptoDataException extends Exception {
 
+	private static final long serialVersionUID = 1L;
+
 	static final String ERROR_MSG = "Invalid input given for decryption operation. Make sure you provide a string that was previously encrypted by RxFingerprint. empty: %s, correct format: %s";
+	static final String ERROR_MSG_ENVELOPE = "Invalid envelope given for decryption operation. Make sure you provide a string that was previously encrypted by RxFingerprint with EncryptionMethod.AES_ENVELOPE.";
+	static final String ERROR_MSG_EC = "Invalid input given for decryption operation. Make sure you provide a string that was previously encrypted by RxFingerprint with EncryptionMethod.EC.";
+	static final String ERROR_MSG_BINARY = "Invalid bytes given for decryption operation. Make sure you provide bytes that were previously encrypted by RxFingerprint.";
+	static final String ERROR_MSG_STREAM = "Invalid stream given for decryption operation. Make sure you provide a stream that was previously encrypted by RxFingerprint.";
+	static final String ERROR_MSG_METHOD = "Input was encrypted with EncryptionMethod.%s and cannot be decrypted with EncryptionMethod.%s.";
+	static final String ERROR_MSG_KEY_NAME = "Input was not encrypted with the key %s. Make sure you use the same keyName for encryption and decryption.";
 
 	private CryptoDataException(String message) {
 		super(message);
@@ -36,4 +44,28 @@ class CryptoDataException extends Exception {
 
 		return new CryptoDataException(message);
 	}
+
+	static CryptoDataException fromEnvelope() {
+		return new CryptoDataException(ERROR_MSG_ENVELOPE);
+	}
+
+	static CryptoDataException fromEc() {
+		return new CryptoDataException(ERROR_MSG_EC);
+	}
+
+	static CryptoDataException fromBinary() {
+		return new CryptoDataException(ERROR_MSG_BINARY);
+	}
+
+	static CryptoDataException fromStream() {
+		return new CryptoDataException(ERROR_MSG_STREAM);
+	}
+
+	static CryptoDataException fromMethod(EncryptionMethod encryptedWith, EncryptionMethod decryptedWith) {
+		return new CryptoDataException(String.format(ERROR_MSG_METHOD, encryptedWith, decryptedWith));
+	}
+
+	static CryptoDataException fromKeyName(String keyName) {
+		return new CryptoDataException(String.format(ERROR_MSG_KEY_NAME, keyName));
+	}
 }
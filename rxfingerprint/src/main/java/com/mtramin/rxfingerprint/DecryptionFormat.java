@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintResult;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+
+/**
+ * Form in which decrypted data is handed to the subscriber in a {@link FingerprintDecryptionResult}.
+ */
+enum DecryptionFormat {
+	/**
+	 * Decrypted data is decoded to characters.
+	 */
+	CHARS,
+	/**
+	 * Decrypted data is returned as bytes.
+	 */
+	BYTES,
+	/**
+	 * Decrypted data is written into a {@link SecureBuffer} without an intermediate array of this
+	 * library.
+	 */
+	SECURE_BUFFER;
+
+	/**
+	 * Finishes the decryption of the given {@link Cipher} with the remaining bytes of the given
+	 * buffer.
+	 *
+	 * @param cipher    cipher initialized for decryption
+	 * @param encrypted encrypted data
+	 * @return result holding the decrypted data in this format
+	 */
+	FingerprintDecryptionResult decrypt(Cipher cipher, ByteBuffer encrypted) throws GeneralSecurityException {
+		if (this == SECURE_BUFFER) {
+			return new FingerprintDecryptionResult(CipherUtils.doFinalSecure(cipher, encrypted));
+		}
+		return toResult(CipherUtils.doFinal(cipher, encrypted));
+	}
+
+	/**
+	 * @param decrypted decrypted data. Will be cleared if it is not handed to the result as is.
+	 * @return result holding the decrypted data in this format
+	 */
+	FingerprintDecryptionResult toResult(byte[] decrypted) {
+		switch (this) {
+			case BYTES:
+				return new FingerprintDecryptionResult(decrypted);
+			case SECURE_BUFFER:
+				SecureBuffer buffer = SecureBuffer.copyOf(decrypted);
+				Arrays.fill(decrypted, (byte) 0);
+				return new FingerprintDecryptionResult(buffer);
+			default:
+				return new FingerprintDecryptionResult(FingerprintResult.AUTHENTICATED, null, ConversionUtils.toChars(decrypted));
+		}
+	}
+}
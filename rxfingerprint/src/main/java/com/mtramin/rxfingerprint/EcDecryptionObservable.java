@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.hardware.fingerprint.FingerprintManager.AuthenticationResult;
+import android.hardware.fingerprint.FingerprintManager.CryptoObject;
+import android.support.annotation.Nullable;
+
+import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintResult;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+
+/**
+ * Decrypts data with {@link EncryptionMethod#EC}. The user always authenticates with their
+ * fingerprint first. The key agreement with the private key of the {@link java.security.KeyStore}
+ * key pair only runs after this authentication succeeded, even if the key is still usable from
+ * an earlier authentication.
+ * <p/>
+ * The data handed in must be previously encrypted by a {@link EcEncryptionObservable}.
+ */
+@SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
+class EcDecryptionObservable extends FingerprintObservable<FingerprintDecryptionResult> {
+
+	private final EcKeyProvider keyProvider;
+	private final EciesData eciesData;
+	private final DecryptionFormat format;
+
+	/**
+	 * Creates a new EcDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt the given data.
+	 *
+	 * @param context    context to use
+	 * @param keyName    keyName to use for the decryption
+	 * @param cryptoData data previously encrypted by RxFingerprint
+	 * @param format     form in which the decrypted data is returned
+	 * @return Observable result of the decryption
+	 */
+	static Observable<FingerprintDecryptionResult> create(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) {
+		try {
+			return Observable.create(newInstance(context, keyName, cryptoData, format));
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	/**
+	 * Creates a new EcDecryptionObservable without subscribing to it, e.g. to prepare its
+	 * {@link CryptoObject} ahead of time.
+	 */
+	static EcDecryptionObservable newInstance(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) throws Exception {
+		EcKeyProvider keyProvider = new EcKeyProvider(context, keyName);
+		cryptoData.verify(EncryptionMethod.EC, keyProvider.keyName);
+		return new EcDecryptionObservable(new FingerprintApiWrapper(context),
+				keyProvider,
+				EciesData.fromBytes(cryptoData.getMessageBuffer(), cryptoData.getIv()),
+				format);
+	}
+
+	private EcDecryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+								   EcKeyProvider keyProvider,
+								   EciesData eciesData,
+								   DecryptionFormat format) {
+		super(fingerprintApiWrapper);
+		this.keyProvider = keyProvider;
+		this.eciesData = eciesData;
+		this.format = format;
+	}
+
+	@Nullable
+	@Override
+	protected CryptoObject initCryptoObject(ObservableEmitter<FingerprintDecryptionResult> emitter) {
+		// A key agreement can not be bound to a CryptoObject, it follows the authentication
+		return null;
+	}
+
+	@Override
+	protected void onAuthenticationSucceeded(ObservableEmitter<FingerprintDecryptionResult> emitter, AuthenticationResult result) {
+		try {
+			emitter.onNext(decrypt());
+			emitter.onComplete();
+		} catch (Exception e) {
+			Logger.error("Unable to decrypt given value. RxFingerprint is only able to decrypt values previously encrypted by RxFingerprint with the same encryption mode.", e);
+			emitter.onError(e);
+		}
+	}
+
+	private FingerprintDecryptionResult decrypt() throws Exception {
+		return eciesData.open(keyProvider.getPrivateKey(), keyProvider.getPublicKey().getParams(), format);
+	}
+
+	@Override
+	protected void onAuthenticationHelp(ObservableEmitter<FingerprintDecryptionResult> emitter, int helpMessageId, String helpString) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.HELP, helpString, null));
+	}
+
+	@Override
+	protected void onAuthenticationFailed(ObservableEmitter<FingerprintDecryptionResult> emitter) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.FAILED, null, null));
+	}
+}
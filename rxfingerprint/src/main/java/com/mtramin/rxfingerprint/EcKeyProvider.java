@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Provides the key pair for {@link EncryptionMethod#EC}.
+ * <p/>
+ * The private key is only usable for key agreement, which the Android {@link java.security.KeyStore}
+ * supports from Android 12 (API 31) on. Values are encrypted with an ephemeral key agreement by
+ * {@link EciesData}, so unlike a {@link CipherProvider} there is no {@link javax.crypto.Cipher}
+ * bound to the key.
+ * <p/>
+ * A key agreement cannot be bound to a fingerprint authentication with a
+ * {@link android.hardware.fingerprint.FingerprintManager.CryptoObject}, so the private key is
+ * usable for {@link #AUTHENTICATION_VALIDITY_SECONDS} after a strong biometric authentication
+ * instead. Unlocking the device with a device credential does not authorize the key.
+ */
+class EcKeyProvider implements KeyProvider {
+	static final int AUTHENTICATION_VALIDITY_SECONDS = 5;
+	private static final int AUTH_BIOMETRIC_STRONG = 1 << 1; // KeyProperties.AUTH_BIOMETRIC_STRONG
+	private static final int PURPOSE_AGREE_KEY = 1 << 6; // KeyProperties.PURPOSE_AGREE_KEY
+	private static final int MIN_SDK = 31; // Build.VERSION_CODES.S
+	private static final String CURVE = "secp256r1";
+
+	final String keyName;
+	private final boolean invalidatedByBiometricEnrollment;
+
+	EcKeyProvider(@NonNull Context context, @Nullable String keyName) {
+		this(context, keyName, true);
+	}
+
+	/**
+	 * @throws UnsupportedOperationException if the device does not support
+	 *                                       {@link EncryptionMethod#EC}
+	 */
+	EcKeyProvider(@NonNull Context context, @Nullable String keyName, boolean keyInvalidatedByBiometricEnrollment) {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("EncryptionMethod.EC requires Android 12 (API 31) or above");
+		}
+		this.keyName = CipherProvider.keyNameOrDefault(context, keyName);
+		invalidatedByBiometricEnrollment = keyInvalidatedByBiometricEnrollment;
+		KeyStoreSession.registerMemoryCallbacks(context);
+	}
+
+	/**
+	 * @return {@code true} if the Android {@link java.security.KeyStore} of this device supports
+	 * key agreement
+	 */
+	static boolean isSupported() {
+		return Build.VERSION.SDK_INT >= MIN_SDK;
+	}
+
+	/**
+	 * @return public key of this provider. The key is detached from the {@link java.security.KeyStore}
+	 * and can be used for encryption without any {@link java.security.KeyStore} access.
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	ECPublicKey getPublicKey() throws GeneralSecurityException, IOException {
+		PublicKey publicKey = KeyStoreSession.publicKeys().get(keyName);
+		if (publicKey == null) {
+			KeyFactory keyFactory = KeyFactory.getInstance(KeyProperties.KEY_ALGORITHM_EC);
+			publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(findOrCreatePublicKey().getEncoded()));
+			KeyStoreSession.publicKeys().put(keyName, publicKey);
+		}
+		return (ECPublicKey) publicKey;
+	}
+
+	/**
+	 * @return private key of this provider. Can only be used for a key agreement within
+	 * {@link #AUTHENTICATION_VALIDITY_SECONDS} after a strong biometric authentication.
+	 */
+	PrivateKey getPrivateKey() throws GeneralSecurityException, IOException {
+		return (PrivateKey) KeyStoreSession.getKey(keyName);
+	}
+
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	public void prewarm() throws GeneralSecurityException, IOException {
+		getPublicKey();
+	}
+
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	public void rotateKey() throws GeneralSecurityException, IOException {
+		if (CipherProvider.keyExists(keyName)) {
+			KeyStoreSession.deleteEntry(keyName);
+		}
+		createKeyPair(keyName, invalidatedByBiometricEnrollment);
+	}
+
+	private PublicKey findOrCreatePublicKey() throws GeneralSecurityException, IOException {
+		if (CipherProvider.keyExists(keyName)) {
+			Certificate certificate = KeyStoreSession.get().getCertificate(keyName);
+			if (certificate != null) {
+				return certificate.getPublicKey();
+			}
+			Logger.warn("Key was removed from the KeyStore. Creating a new key.");
+		}
+		return createKeyPair(keyName, invalidatedByBiometricEnrollment).getPublic();
+	}
+
+	/**
+	 * Restricts the key to strong biometrics. A plain authentication validity duration would also
+	 * accept a device credential. {@code setUserAuthenticationParameters} was added in API 30 and
+	 * is not part of the compile SDK.
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	private static void setBiometricAuthenticationParameters(KeyGenParameterSpec.Builder builder) throws GeneralSecurityException {
+		try {
+			Method method = KeyGenParameterSpec.Builder.class.getMethod("setUserAuthenticationParameters", int.class, int.class);
+			method.invoke(builder, AUTHENTICATION_VALIDITY_SECONDS, AUTH_BIOMETRIC_STRONG);
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			throw new InvalidAlgorithmParameterException("Unable to restrict the key to strong biometrics", e);
+		}
+	}
+
+	@TargetApi(Build.VERSION_CODES.M)
+	private static KeyPair createKeyPair(String keyName, boolean invalidatedByBiometricEnrollment) throws GeneralSecurityException {
+		KeyPairGenerator keyGenerator = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_EC, CipherProvider.ANDROID_KEY_STORE);
+
+		KeyGenParameterSpec.Builder builder = new KeyGenParameterSpec.Builder(keyName, PURPOSE_AGREE_KEY)
+				.setAlgorithmParameterSpec(new ECGenParameterSpec(CURVE))
+				.setUserAuthenticationRequired(true);
+		setBiometricAuthenticationParameters(builder);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+			builder.setInvalidatedByBiometricEnrollment(invalidatedByBiometricEnrollment);
+		}
+		keyGenerator.initialize(builder.build());
+
+		KeyPair keyPair = keyGenerator.generateKeyPair();
+		KeyStoreSession.onEntryCreated(keyName);
+		return keyPair;
+	}
+}
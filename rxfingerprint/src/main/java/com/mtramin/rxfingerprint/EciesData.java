@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Data of a value encrypted with {@link EncryptionMethod#EC}.
+ * <p/>
+ * Every value is encrypted with a fresh ephemeral key pair on the curve of the recipient key. The
+ * shared secret of an ECDH key agreement between the ephemeral private key and the public key of
+ * the recipient is expanded to an AES key with HKDF-SHA256, which encrypts the value with
+ * AES/GCM. Only the ephemeral public key is stored alongside the encrypted value:
+ * <pre>
+ * [ephemeral public key, uncompressed point (65 bytes)][encrypted value and tag]
+ * </pre>
+ * The nonce of the AES/GCM operation is stored as initialization vector of the {@link CryptoData}.
+ */
+class EciesData {
+	static final int NONCE_SIZE = 12;
+	private static final int FIELD_SIZE = 32;
+	private static final int POINT_SIZE = 1 + 2 * FIELD_SIZE;
+	private static final int TAG_SIZE = 128;
+	private static final byte UNCOMPRESSED_POINT = 0x04;
+	private static final String KEY_ALGORITHM = "EC";
+	private static final String KEY_AGREEMENT = "ECDH";
+	private static final String DATA_KEY_ALGORITHM = "AES";
+	private static final String DATA_TRANSFORMATION = "AES/GCM/NoPadding";
+	private static final String KDF_ALGORITHM = "HmacSHA256";
+	private static final byte[] KDF_INFO = {'R', 'x', 'F', 'i', 'n', 'g', 'e', 'r', 'p', 'r', 'i', 'n', 't', ' ', 'E', 'C'};
+
+	private static final SecureRandom secureRandom = new SecureRandom();
+
+	private final byte[] ephemeralKey;
+	private final byte[] nonce;
+	private final ByteBuffer encrypted;
+
+	private EciesData(byte[] ephemeralKey, byte[] nonce, ByteBuffer encrypted) {
+		this.ephemeralKey = ephemeralKey;
+		this.nonce = nonce;
+		this.encrypted = encrypted;
+	}
+
+	/**
+	 * Encrypts the remaining bytes of the given buffer for the given public key.
+	 *
+	 * @param publicKey public key of the recipient
+	 * @param plainText value to encrypt. Will be wiped after encryption.
+	 * @return encrypted value
+	 */
+	static EciesData seal(PublicKey publicKey, ByteBuffer plainText) throws GeneralSecurityException {
+		ECParameterSpec params = ((ECPublicKey) publicKey).getParams();
+		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(KEY_ALGORITHM);
+		keyPairGenerator.initialize(params, secureRandom);
+		KeyPair ephemeral = keyPairGenerator.generateKeyPair();
+		byte[] ephemeralKey = encodePoint(((ECPublicKey) ephemeral.getPublic()).getW());
+
+		byte[] nonce = new byte[NONCE_SIZE];
+		secureRandom.nextBytes(nonce);
+
+		Cipher cipher = createCipher(Cipher.ENCRYPT_MODE, ephemeral.getPrivate(), publicKey, ephemeralKey, nonce);
+		byte[] encrypted = CipherUtils.doFinal(cipher, plainText);
+		SecureBuffer.wipe(plainText);
+		return new EciesData(ephemeralKey, nonce, ByteBuffer.wrap(encrypted));
+	}
+
+	/**
+	 * Parses encrypted data previously created by {@link #toBytes()}. Does not copy the encrypted
+	 * value.
+	 *
+	 * @param message bytes created by {@link #toBytes()}
+	 * @param nonce   nonce used for encryption
+	 * @return parsed data
+	 */
+	static EciesData fromBytes(ByteBuffer message, byte[] nonce) throws CryptoDataException {
+		if (nonce.length != NONCE_SIZE || message.remaining() < POINT_SIZE + TAG_SIZE / 8) {
+			throw CryptoDataException.fromEc();
+		}
+		ByteBuffer buffer = message.duplicate();
+		byte[] ephemeralKey = new byte[POINT_SIZE];
+		buffer.get(ephemeralKey);
+		if (ephemeralKey[0] != UNCOMPRESSED_POINT) {
+			throw CryptoDataException.fromEc();
+		}
+		return new EciesData(ephemeralKey, nonce, buffer.slice());
+	}
+
+	/**
+	 * Decrypts the value with the private key of the recipient.
+	 *
+	 * @param privateKey private key of the recipient
+	 * @param params     curve of the recipient key
+	 * @param format     form in which the decrypted value is returned
+	 * @return result holding the decrypted value
+	 */
+	FingerprintDecryptionResult open(PrivateKey privateKey, ECParameterSpec params, DecryptionFormat format) throws GeneralSecurityException {
+		PublicKey ephemeral = KeyFactory.getInstance(KEY_ALGORITHM).generatePublic(new ECPublicKeySpec(decodePoint(ephemeralKey), params));
+		Cipher cipher = createCipher(Cipher.DECRYPT_MODE, privateKey, ephemeral, ephemeralKey, nonce);
+		return format.decrypt(cipher, encrypted);
+	}
+
+	/**
+	 * @return nonce used for encryption
+	 */
+	byte[] getNonce() {
+		return nonce;
+	}
+
+	/**
+	 * @return ephemeral public key and encrypted value
+	 */
+	byte[] toBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(ephemeralKey.length + encrypted.remaining())
+				.put(ephemeralKey)
+				.put(encrypted.duplicate());
+		return buffer.array();
+	}
+
+	private static Cipher createCipher(int mode, PrivateKey privateKey, PublicKey publicKey, byte[] ephemeralKey, byte[] nonce) throws GeneralSecurityException {
+		KeyAgreement keyAgreement = KeyAgreement.getInstance(KEY_AGREEMENT);
+		keyAgreement.init(privateKey);
+		keyAgreement.doPhase(publicKey, true);
+		byte[] sharedSecret = keyAgreement.generateSecret();
+		byte[] dataKey = deriveKey(sharedSecret, ephemeralKey);
+		Arrays.fill(sharedSecret, (byte) 0);
+
+		try {
+			Cipher cipher = Cipher.getInstance(DATA_TRANSFORMATION);
+			cipher.init(mode, new SecretKeySpec(dataKey, DATA_KEY_ALGORITHM), new GCMParameterSpec(TAG_SIZE, nonce));
+			cipher.updateAAD(ephemeralKey);
+			return cipher;
+		} finally {
+			Arrays.fill(dataKey, (byte) 0);
+		}
+	}
+
+	/**
+	 * HKDF-SHA256 with an empty salt, expanded to a single block of 32 bytes.
+	 */
+	private static byte[] deriveKey(byte[] sharedSecret, byte[] ephemeralKey) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance(KDF_ALGORITHM);
+		mac.init(new SecretKeySpec(new byte[mac.getMacLength()], KDF_ALGORITHM));
+		byte[] pseudoRandomKey = mac.doFinal(sharedSecret);
+
+		mac.init(new SecretKeySpec(pseudoRandomKey, KDF_ALGORITHM));
+		Arrays.fill(pseudoRandomKey, (byte) 0);
+		mac.update(KDF_INFO);
+		mac.update(ephemeralKey);
+		mac.update((byte) 1);
+		return mac.doFinal();
+	}
+
+	private static byte[] encodePoint(ECPoint point) {
+		byte[] encoded = new byte[POINT_SIZE];
+		encoded[0] = UNCOMPRESSED_POINT;
+		writeCoordinate(point.getAffineX(), encoded, 1);
+		writeCoordinate(point.getAffineY(), encoded, 1 + FIELD_SIZE);
+		return encoded;
+	}
+
+	private static void writeCoordinate(BigInteger coordinate, byte[] output, int offset) {
+		byte[] bytes = coordinate.toByteArray();
+		int length = Math.min(bytes.length, FIELD_SIZE);
+		System.arraycopy(bytes, bytes.length - length, output, offset + FIELD_SIZE - length, length);
+	}
+
+	private static ECPoint decodePoint(byte[] encoded) {
+		return new ECPoint(new BigInteger(1, Arrays.copyOfRange(encoded, 1, 1 + FIELD_SIZE)),
+				new BigInteger(1, Arrays.copyOfRange(encoded, 1 + FIELD_SIZE, POINT_SIZE)));
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+/**
+ * Holds the {@link EncodingProvider} used for the String representation of encrypted values.
+ */
+class Encoding {
+
+	private static volatile EncodingProvider provider = new Base64Provider();
+
+	static EncodingProvider getProvider() {
+		return provider;
+	}
+
+	static void setProvider(EncodingProvider provider) {
+		Encoding.provider = provider;
+	}
+
+	private Encoding() {
+		// hide
+	}
+}
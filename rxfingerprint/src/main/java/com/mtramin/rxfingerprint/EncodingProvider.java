@@ -17,9 +17,12 @@
 package com.mtramin.rxfingerprint;
 
 /**
- * Defines a provider for encoding and decoding
+ * Defines a provider for encoding and decoding the String representation of encrypted values.
+ * <p/>
+ * RxFingerprint uses {@link Base64Provider} by default. A custom provider can be set with
+ * {@link RxFingerprint#setEncodingProvider(EncodingProvider)}.
  */
-interface EncodingProvider {
+public interface EncodingProvider {
 
 	/**
 	 * Encodes the given byte array to a String
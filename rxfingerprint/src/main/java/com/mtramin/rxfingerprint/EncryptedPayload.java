@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Encrypted value that was already parsed and decoded. Parsing values ahead of time, e.g. when
+ * they are loaded from disk, keeps this work off the path between the fingerprint authentication
+ * and the decryption.
+ * <p/>
+ * Create payloads with {@link #fromString(String)}, {@link #fromBytes(byte[])} or
+ * {@link RxFingerprint#parse(Iterable)} and decrypt them with
+ * {@link RxFingerprint#decrypt(android.content.Context, String, EncryptedPayload)}. Payloads are immutable and
+ * can be decrypted any number of times.
+ */
+public final class EncryptedPayload {
+
+	private final CryptoData cryptoData;
+
+	EncryptedPayload(CryptoData cryptoData) {
+		this.cryptoData = cryptoData;
+	}
+
+	/**
+	 * Parses a value previously encrypted by RxFingerprint. Values encrypted by previous versions
+	 * of RxFingerprint are assumed to be encrypted with {@link EncryptionMethod#AES}.
+	 *
+	 * @param encrypted String of encrypted data as returned by
+	 *                  {@link com.mtramin.rxfingerprint.data.FingerprintEncryptionResult#getEncrypted()}
+	 * @return parsed payload
+	 * @throws IllegalArgumentException if the given value was not encrypted by RxFingerprint
+	 */
+	@NonNull
+	public static EncryptedPayload fromString(@NonNull String encrypted) {
+		return fromString(encrypted, EncryptionMethod.AES);
+	}
+
+	/**
+	 * Parses a value previously encrypted by RxFingerprint.
+	 *
+	 * @param encrypted    String of encrypted data as returned by
+	 *                     {@link com.mtramin.rxfingerprint.data.FingerprintEncryptionResult#getEncrypted()}
+	 * @param legacyMethod method the value was encrypted with, if it was encrypted by a previous
+	 *                     version of RxFingerprint. Values of the current version carry their
+	 *                     method themselves.
+	 * @return parsed payload
+	 * @throws IllegalArgumentException if the given value was not encrypted by RxFingerprint
+	 */
+	@NonNull
+	public static EncryptedPayload fromString(@NonNull String encrypted, @NonNull EncryptionMethod legacyMethod) {
+		try {
+			return new EncryptedPayload(CryptoData.fromString(Encoding.getProvider(), encrypted, legacyMethod));
+		} catch (CryptoDataException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Parses binary data previously encrypted by RxFingerprint. The given array is not modified.
+	 *
+	 * @param encrypted bytes as returned by
+	 *                  {@link com.mtramin.rxfingerprint.data.FingerprintEncryptionResult#getEncryptedBytes()}
+	 * @return parsed payload
+	 * @throws IllegalArgumentException if the given bytes were not encrypted by RxFingerprint
+	 */
+	@NonNull
+	public static EncryptedPayload fromBytes(@NonNull byte[] encrypted) {
+		try {
+			return new EncryptedPayload(CryptoData.fromBinary(Encoding.getProvider(), encrypted.clone()));
+		} catch (CryptoDataException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return the method this payload was encrypted with
+	 */
+	@NonNull
+	public EncryptionMethod getMethod() {
+		return cryptoData.getMethod();
+	}
+
+	/**
+	 * @return binary representation of this payload, which can be parsed again with
+	 * {@link #fromBytes(byte[])}
+	 */
+	@NonNull
+	public byte[] toBytes() {
+		return cryptoData.toBinary().clone();
+	}
+
+	/**
+	 * @return String representation of this payload, which can be parsed again with
+	 * {@link #fromString(String)}
+	 */
+	@Override
+	public String toString() {
+		return cryptoData.toString();
+	}
+
+	CryptoData getCryptoData() {
+		return cryptoData;
+	}
+}
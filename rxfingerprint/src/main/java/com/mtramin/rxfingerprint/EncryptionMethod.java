@@ -42,5 +42,51 @@ public enum EncryptionMethod {
 	 * Using RSA will only require fingerprint authentication for decryption. Values can be
 	 * encrypted without the user needing to authenticate their fingerprint.
 	 */
-	RSA
+	RSA,
+
+	/**
+	 * Uses envelope encryption on top of AES. The key in the Android KeyStore only wraps a random
+	 * 256-bit data key. The values themselves are encrypted in-process with AES/GCM using that
+	 * data key, which allows encrypting and decrypting many or large values with a single
+	 * fingerprint authentication.
+	 * <p>
+	 * Using AES_ENVELOPE will require fingerprint authentication for both encryption and
+	 * decryption.
+	 */
+	AES_ENVELOPE,
+
+	/**
+	 * Uses AES in Galois/Counter Mode (GCM). A 256-bit key will be used for the operation. Values
+	 * are not padded and carry a 16 byte authentication tag, so tampered values are rejected
+	 * before any decrypted data is returned.
+	 * <p>
+	 * Using AES_GCM will require fingerprint authentication for both encryption and decryption.
+	 * Every value requires its own fingerprint authentication, use {@link #AES_ENVELOPE} to
+	 * encrypt or decrypt several values at once.
+	 */
+	AES_GCM,
+
+	/**
+	 * Uses elliptic-curve cryptography on the P-256 curve. Every value is encrypted with AES/GCM
+	 * using a key agreed between a new ephemeral key pair and the public key in the Android
+	 * KeyStore. Creating the key and encrypting is considerably faster than with {@link #RSA}
+	 * and the encrypted values are much smaller.
+	 * <p>
+	 * Like RSA, using EC will only require fingerprint authentication for decryption. The key
+	 * agreement for decryption can not be bound to a single fingerprint authentication. It
+	 * therefore follows a dedicated fingerprint authentication of every decryption and the key
+	 * is only usable for a few seconds after a strong biometric authentication.
+	 * <p>
+	 * Requires Android 12 (API 31) or above.
+	 */
+	EC,
+
+	/**
+	 * Uses RSA/OAEP to wrap a random 256-bit data key, which encrypts the values in-process with
+	 * AES/GCM. Unlike {@link #RSA}, values are not limited in size.
+	 * <p>
+	 * Using RSA_HYBRID will only require fingerprint authentication for decryption. Values can be
+	 * encrypted without the user needing to authenticate their fingerprint.
+	 */
+	RSA_HYBRID
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Data of a value encrypted with {@link EncryptionMethod#AES_ENVELOPE}.
+ * <p/>
+ * The value itself is encrypted in-process with a random data key using AES/GCM. The data key is
+ * wrapped by the fingerprint-gated key in the Android {@link java.security.KeyStore} and stored
+ * alongside the encrypted value. The layout of the envelope is:
+ * <pre>
+ * [length of wrapped key (1 byte)][wrapped key][nonce (12 bytes)][encrypted value and tag]
+ * </pre>
+ * Data keys wrapped by RSA for {@link EncryptionMethod#RSA_HYBRID} are longer than 255 bytes, their
+ * length is stored in 2 bytes instead.
+ */
+class EnvelopeData {
+	static final int DATA_KEY_SIZE = 32;
+	static final int NONCE_SIZE = 12;
+	static final int SHORT_KEY_LENGTH = 1;
+	static final int LONG_KEY_LENGTH = 2;
+	private static final int TAG_SIZE = 128;
+	private static final String DATA_KEY_ALGORITHM = "AES";
+	private static final String DATA_TRANSFORMATION = "AES/GCM/NoPadding";
+
+	private static final SecureRandom secureRandom = new SecureRandom();
+
+	private final byte[] wrappedKey;
+	private final byte[] nonce;
+	private final byte[] encrypted;
+
+	private EnvelopeData(byte[] wrappedKey, byte[] nonce, byte[] encrypted) {
+		this.wrappedKey = wrappedKey;
+		this.nonce = nonce;
+		this.encrypted = encrypted;
+	}
+
+	/**
+	 * @return a new random data key
+	 */
+	static byte[] generateDataKey() {
+		byte[] dataKey = new byte[DATA_KEY_SIZE];
+		secureRandom.nextBytes(dataKey);
+		return dataKey;
+	}
+
+	/**
+	 * Encrypts the given value with the given data key.
+	 *
+	 * @param dataKey    data key to encrypt with
+	 * @param wrappedKey the data key wrapped by the {@link java.security.KeyStore} key
+	 * @param plainText  value to encrypt. Will be cleared after encryption.
+	 * @return envelope of the encrypted value
+	 */
+	static EnvelopeData seal(byte[] dataKey, byte[] wrappedKey, byte[] plainText) throws GeneralSecurityException {
+		return seal(dataKey, wrappedKey, ByteBuffer.wrap(plainText));
+	}
+
+	/**
+	 * Encrypts the remaining bytes of the given buffer with the given data key.
+	 *
+	 * @param dataKey    data key to encrypt with
+	 * @param wrappedKey the data key wrapped by the {@link java.security.KeyStore} key
+	 * @param plainText  value to encrypt. Will be wiped after encryption.
+	 * @return envelope of the encrypted value
+	 */
+	static EnvelopeData seal(byte[] dataKey, byte[] wrappedKey, ByteBuffer plainText) throws GeneralSecurityException {
+		byte[] nonce = new byte[NONCE_SIZE];
+		secureRandom.nextBytes(nonce);
+
+		Cipher cipher = Cipher.getInstance(DATA_TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(dataKey, DATA_KEY_ALGORITHM), new GCMParameterSpec(TAG_SIZE, nonce));
+		cipher.updateAAD(wrappedKey);
+		byte[] encrypted = CipherUtils.doFinal(cipher, plainText);
+		SecureBuffer.wipe(plainText);
+
+		return new EnvelopeData(wrappedKey, nonce, encrypted);
+	}
+
+	/**
+	 * Parses an envelope previously created by {@link #toBytes()}.
+	 *
+	 * @param input bytes of the envelope
+	 * @return parsed envelope
+	 */
+	static EnvelopeData fromBytes(byte[] input) throws CryptoDataException {
+		return fromBytes(ByteBuffer.wrap(input), SHORT_KEY_LENGTH);
+	}
+
+	/**
+	 * Parses an envelope previously created by {@link #toBytes(int)}.
+	 *
+	 * @param input           bytes of the envelope
+	 * @param keyLengthPrefix number of bytes holding the length of the wrapped key
+	 * @return parsed envelope
+	 */
+	static EnvelopeData fromBytes(ByteBuffer input, int keyLengthPrefix) throws CryptoDataException {
+		ByteBuffer buffer = input.duplicate();
+		if (buffer.remaining() < keyLengthPrefix) {
+			throw CryptoDataException.fromEnvelope();
+		}
+		int wrappedKeyLength = keyLengthPrefix == LONG_KEY_LENGTH ? buffer.getShort() & 0xFFFF : buffer.get() & 0xFF;
+		if (wrappedKeyLength == 0 || buffer.remaining() < wrappedKeyLength + NONCE_SIZE + TAG_SIZE / 8) {
+			throw CryptoDataException.fromEnvelope();
+		}
+
+		byte[] wrappedKey = new byte[wrappedKeyLength];
+		byte[] nonce = new byte[NONCE_SIZE];
+		byte[] encrypted = new byte[buffer.remaining() - wrappedKeyLength - NONCE_SIZE];
+		buffer.get(wrappedKey).get(nonce).get(encrypted);
+
+		return new EnvelopeData(wrappedKey, nonce, encrypted);
+	}
+
+	/**
+	 * Decrypts the value of this envelope.
+	 *
+	 * @param dataKey the unwrapped data key of this envelope
+	 * @return decrypted value
+	 */
+	byte[] open(byte[] dataKey) throws GeneralSecurityException {
+		return openCipher(dataKey).doFinal(encrypted);
+	}
+
+	/**
+	 * Decrypts the value of this envelope.
+	 *
+	 * @param dataKey the unwrapped data key of this envelope
+	 * @param format  form in which the decrypted value is returned
+	 * @return result holding the decrypted value
+	 */
+	FingerprintDecryptionResult open(byte[] dataKey, DecryptionFormat format) throws GeneralSecurityException {
+		return format.decrypt(openCipher(dataKey), ByteBuffer.wrap(encrypted));
+	}
+
+	private Cipher openCipher(byte[] dataKey) throws GeneralSecurityException {
+		Cipher cipher = Cipher.getInstance(DATA_TRANSFORMATION);
+		cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(dataKey, DATA_KEY_ALGORITHM), new GCMParameterSpec(TAG_SIZE, nonce));
+		cipher.updateAAD(wrappedKey);
+		return cipher;
+	}
+
+	/**
+	 * @return the data key of this envelope, wrapped by the {@link java.security.KeyStore} key
+	 */
+	byte[] getWrappedKey() {
+		return wrappedKey;
+	}
+
+	/**
+	 * @return bytes of this envelope
+	 */
+	byte[] toBytes() {
+		return toBytes(SHORT_KEY_LENGTH);
+	}
+
+	/**
+	 * @param keyLengthPrefix number of bytes holding the length of the wrapped key
+	 * @return bytes of this envelope
+	 */
+	byte[] toBytes(int keyLengthPrefix) {
+		ByteBuffer buffer = ByteBuffer.allocate(keyLengthPrefix + wrappedKey.length + nonce.length + encrypted.length);
+		if (keyLengthPrefix == LONG_KEY_LENGTH) {
+			buffer.putShort((short) wrappedKey.length);
+		} else {
+			buffer.put((byte) wrappedKey.length);
+		}
+		return buffer.put(wrappedKey)
+				.put(nonce)
+				.put(encrypted)
+				.array();
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+
+import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintResult;
+
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.crypto.Cipher;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Decrypts data with {@link EncryptionMethod#AES_ENVELOPE}. Initializes a {@link Cipher} which
+ * can only be used with fingerprint authentication. Once authentication was successful all
+ * distinct data keys of the given values are unwrapped with a single operation by
+ * {@link CbcChaining}. The values themselves are decrypted in parallel on the
+ * {@link Schedulers#computation()} scheduler and emitted in the order they were given. Disposing
+ * the subscription stops the decryption of the remaining values.
+ * <p/>
+ * The values handed in must be previously encrypted by a {@link EnvelopeEncryptionObservable}.
+ */
+@SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
+class EnvelopeDecryptionObservable extends CipherObservable<FingerprintDecryptionResult> {
+
+	private final AesCipherProvider cipherProvider;
+	private final List<EnvelopeData> envelopes;
+	private final List<byte[][]> wrappedKeys;
+	private final int[] keyIndices;
+	private final DecryptionFormat format;
+
+	/**
+	 * Creates a new EnvelopeDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt all of the given values.
+	 *
+	 * @param context   context to use
+	 * @param keyName   keyName to use for the decryption
+	 * @param encrypted values to decrypt
+	 * @return Flowable result of the decryption. Contains one result per given value.
+	 */
+	static Flowable<FingerprintDecryptionResult> create(Context context, String keyName, Iterable<String> encrypted) {
+		return create(context, keyName, CryptoData.fromStrings(Encoding.getProvider(), encrypted, EncryptionMethod.AES_ENVELOPE));
+	}
+
+	/**
+	 * Creates a new EnvelopeDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt all of the given parsed values.
+	 *
+	 * @param context   context to use
+	 * @param keyName   keyName to use for the decryption
+	 * @param encrypted parsed values to decrypt
+	 * @return Flowable result of the decryption. Contains one result per given value.
+	 */
+	static Flowable<FingerprintDecryptionResult> create(final Context context, final String keyName, Flowable<CryptoData> encrypted) {
+		return encrypted.toList()
+				.flatMapPublisher(new Function<List<CryptoData>, Publisher<FingerprintDecryptionResult>>() {
+					@Override
+					public Publisher<FingerprintDecryptionResult> apply(List<CryptoData> values) throws Exception {
+						if (values.isEmpty()) {
+							return Flowable.empty();
+						}
+						AesCipherProvider cipherProvider = new AesCipherProvider(context, keyName);
+						return Observable.create(new EnvelopeDecryptionObservable(new FingerprintApiWrapper(context),
+								cipherProvider,
+								open(values, cipherProvider.keyName),
+								DecryptionFormat.CHARS))
+								.toFlowable(BackpressureStrategy.BUFFER);
+					}
+				});
+	}
+
+	/**
+	 * Creates a new EnvelopeDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt the given value.
+	 *
+	 * @param context      context to use
+	 * @param keyName      keyName to use for the decryption
+	 * @param cryptoData   value previously encrypted by RxFingerprint
+	 * @param format       form in which the decrypted data is returned
+	 * @return Observable result of the decryption
+	 */
+	static Observable<FingerprintDecryptionResult> create(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) {
+		try {
+			return Observable.create(newInstance(context, keyName, cryptoData, format));
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	/**
+	 * Creates a new EnvelopeDecryptionObservable without subscribing to it, e.g. to prepare its
+	 * {@link android.hardware.fingerprint.FingerprintManager.CryptoObject} ahead of time.
+	 */
+	static EnvelopeDecryptionObservable newInstance(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) throws Exception {
+		AesCipherProvider cipherProvider = new AesCipherProvider(context, keyName);
+		return new EnvelopeDecryptionObservable(new FingerprintApiWrapper(context),
+				cipherProvider,
+				open(Collections.singletonList(cryptoData), cipherProvider.keyName),
+				format);
+	}
+
+	private static List<Object[]> open(List<CryptoData> values, String keyName) throws CryptoDataException {
+		List<Object[]> envelopes = new ArrayList<>(values.size());
+		for (CryptoData cryptoData : values) {
+			cryptoData.verify(EncryptionMethod.AES_ENVELOPE, keyName);
+			envelopes.add(new Object[]{cryptoData, EnvelopeData.fromBytes(cryptoData.getMessage())});
+		}
+		return envelopes;
+	}
+
+	private EnvelopeDecryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+										 AesCipherProvider cipherProvider,
+										 List<Object[]> values,
+										 DecryptionFormat format) {
+		super(fingerprintApiWrapper, cipherProvider);
+		this.cipherProvider = cipherProvider;
+		this.format = format;
+
+		// Values encrypted together share their data key, which only needs to be unwrapped once
+		envelopes = new ArrayList<>(values.size());
+		wrappedKeys = new ArrayList<>();
+		keyIndices = new int[values.size()];
+		Map<ByteBuffer, Integer> indexByKey = new HashMap<>();
+		for (int i = 0; i < values.size(); i++) {
+			byte[] iv = ((CryptoData) values.get(i)[0]).getIv();
+			EnvelopeData envelope = (EnvelopeData) values.get(i)[1];
+			envelopes.add(envelope);
+
+			ByteBuffer wrappedKey = ByteBuffer.allocate(envelope.getWrappedKey().length + iv.length)
+					.put(envelope.getWrappedKey())
+					.put(iv);
+			wrappedKey.flip();
+			Integer index = indexByKey.get(wrappedKey);
+			if (index == null) {
+				index = wrappedKeys.size();
+				indexByKey.put(wrappedKey, index);
+				wrappedKeys.add(new byte[][]{envelope.getWrappedKey(), iv});
+			}
+			keyIndices[i] = index;
+		}
+	}
+
+	@Override
+	Cipher initCipher() throws Exception {
+		return cipherProvider.getCipherForDecryption(wrappedKeys.get(0)[1]);
+	}
+
+	@Override
+	void onCipherAuthenticated(final ObservableEmitter<FingerprintDecryptionResult> emitter, Cipher cipher) {
+		final List<byte[]> dataKeys;
+		try {
+			dataKeys = CbcChaining.decrypt(cipher, wrappedKeys);
+		} catch (Exception e) {
+			emitter.onError(cipherProvider.mapCipherFinalOperationException(e));
+			return;
+		}
+
+		// The authentication is complete at this point, so opening the envelopes replaces the
+		// cancellation of the sensor as the work to stop once the subscriber disposes
+		emitter.setDisposable(Flowable.range(0, envelopes.size())
+				.concatMapEager(new Function<Integer, Publisher<FingerprintDecryptionResult>>() {
+					@Override
+					public Publisher<FingerprintDecryptionResult> apply(final Integer index) throws Exception {
+						return Flowable.fromCallable(new Callable<FingerprintDecryptionResult>() {
+							@Override
+							public FingerprintDecryptionResult call() throws Exception {
+								return envelopes.get(index).open(dataKeys.get(keyIndices[index]), format);
+							}
+						}).subscribeOn(Schedulers.computation());
+					}
+				})
+				.doFinally(new Action() {
+					@Override
+					public void run() throws Exception {
+						for (byte[] dataKey : dataKeys) {
+							Arrays.fill(dataKey, (byte) 0);
+						}
+					}
+				})
+				.subscribe(new Consumer<FingerprintDecryptionResult>() {
+					@Override
+					public void accept(FingerprintDecryptionResult decryptionResult) throws Exception {
+						emitter.onNext(decryptionResult);
+					}
+				}, new Consumer<Throwable>() {
+					@Override
+					public void accept(Throwable throwable) throws Exception {
+						emitter.tryOnError(throwable);
+					}
+				}, new Action() {
+					@Override
+					public void run() throws Exception {
+						emitter.onComplete();
+					}
+				}));
+	}
+
+	@Override
+	protected void onAuthenticationHelp(ObservableEmitter<FingerprintDecryptionResult> emitter, int helpMessageId, String helpString) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.HELP, helpString, null));
+	}
+
+	@Override
+	protected void onAuthenticationFailed(ObservableEmitter<FingerprintDecryptionResult> emitter) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.FAILED, null, null));
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+
+import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintResult;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+
+/**
+ * Encrypts data with {@link EncryptionMethod#AES_ENVELOPE}. Initializes a {@link Cipher} which can
+ * only be used with fingerprint authentication. Once authentication was successful it wraps a new
+ * random data key, which then encrypts all of the given values in-process.
+ */
+@SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
+class EnvelopeEncryptionObservable extends CipherObservable<FingerprintEncryptionResult> {
+
+	private final List<ByteBuffer> toEncrypt;
+	private final EncodingProvider encodingProvider;
+	private final AesCipherProvider cipherProvider;
+
+	/**
+	 * Creates a new EnvelopeEncryptionObservable that will listen to fingerprint authentication
+	 * to encrypt all of the given values. Emits one result per value in the given order.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt
+	 * @param authenticationValiditySeconds duration for which a newly created key can be used
+	 *                                      after authentication, {@code 0} to authenticate every use
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, Iterable<char[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
+		List<byte[]> values = new ArrayList<>();
+		for (char[] value : toEncrypt) {
+			if (value == null) {
+				return Observable.error(new NullPointerException("String to be encrypted is null. Can only encrypt valid strings"));
+			}
+			values.add(ConversionUtils.toBytes(value));
+		}
+		return create(context, keyName, values, keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+	}
+
+	/**
+	 * Creates a new EnvelopeEncryptionObservable that will listen to fingerprint authentication
+	 * to encrypt all of the given binary values. Emits one result per value in the given order.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt. Will be cleared after encryption.
+	 * @param authenticationValiditySeconds duration for which a newly created key can be used
+	 *                                      after authentication, {@code 0} to authenticate every use
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, List<byte[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
+		if (toEncrypt.isEmpty()) {
+			return Observable.empty();
+		}
+		return fromBuffers(context, keyName, CipherUtils.wrap(toEncrypt), keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+	}
+
+	/**
+	 * Creates a new EnvelopeEncryptionObservable that will listen to fingerprint authentication
+	 * to encrypt the content of the given {@link SecureBuffer}.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt value to encrypt. Will be wiped after encryption.
+	 * @param authenticationValiditySeconds duration for which a newly created key can be used
+	 *                                      after authentication, {@code 0} to authenticate every use
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, SecureBuffer toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
+		try {
+			return fromBuffers(context, keyName, Collections.singletonList(toEncrypt.content()), keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds);
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	private static Observable<FingerprintEncryptionResult> fromBuffers(Context context, String keyName, List<ByteBuffer> toEncrypt, boolean keyInvalidatedByBiometricEnrollment, int authenticationValiditySeconds) {
+		try {
+			return Observable.create(new EnvelopeEncryptionObservable(new FingerprintApiWrapper(context),
+					new AesCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment, authenticationValiditySeconds),
+					toEncrypt,
+					Encoding.getProvider()));
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	private EnvelopeEncryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+										 AesCipherProvider cipherProvider,
+										 List<ByteBuffer> toEncrypt,
+										 EncodingProvider encodingProvider) {
+		super(fingerprintApiWrapper, cipherProvider);
+		this.cipherProvider = cipherProvider;
+		this.toEncrypt = toEncrypt;
+		this.encodingProvider = encodingProvider;
+	}
+
+	@Override
+	Cipher initCipher() throws Exception {
+		return cipherProvider.getCipherForEncryption();
+	}
+
+	@Override
+	void onCipherAuthenticated(ObservableEmitter<FingerprintEncryptionResult> emitter, Cipher cipher) {
+		byte[] dataKey = EnvelopeData.generateDataKey();
+		try {
+			byte[] wrappedKey = cipher.doFinal(dataKey);
+			byte[] ivBytes = cipher.getParameters().getParameterSpec(IvParameterSpec.class).getIV();
+
+			for (ByteBuffer value : toEncrypt) {
+				EnvelopeData envelopeData = EnvelopeData.seal(dataKey, wrappedKey, value);
+
+				emitter.onNext(new CryptoDataEncryptionResult(CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES_ENVELOPE, cipherProvider.keyName, envelopeData.toBytes(), ivBytes)));
+			}
+			emitter.onComplete();
+		} catch (Exception e) {
+			emitter.onError(cipherProvider.mapCipherFinalOperationException(e));
+		} finally {
+			Arrays.fill(dataKey, (byte) 0);
+		}
+	}
+
+	@Override
+	protected void onAuthenticationHelp(ObservableEmitter<FingerprintEncryptionResult> emitter, int helpMessageId, String helpString) {
+		emitter.onNext(new FingerprintEncryptionResult(FingerprintResult.HELP, helpString, null));
+	}
+
+	@Override
+	protected void onAuthenticationFailed(ObservableEmitter<FingerprintEncryptionResult> emitter) {
+		emitter.onNext(new FingerprintEncryptionResult(FingerprintResult.FAILED, null, null));
+	}
+}
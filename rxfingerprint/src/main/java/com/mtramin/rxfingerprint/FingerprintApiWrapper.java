@@ -23,6 +23,8 @@ import android.content.pm.PackageManager;
 import android.hardware.fingerprint.FingerprintManager;
 import android.os.Build;
 import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
@@ -63,6 +65,13 @@ class FingerprintApiWrapper {
 		return !isAvailable();
 	}
 
+	/**
+	 * @return {@code true} if the SDK of the device does not provide the fingerprint APIs at all
+	 */
+	boolean isApiUnavailable() {
+		return !hasApis;
+	}
+
 	boolean isHardwareDetected() {
 		if (!hasApis || !fingerprintPermissionGranted()) {
 			return false;
@@ -86,10 +95,34 @@ class FingerprintApiWrapper {
 		return fingerprintManager;
 	}
 
+	/**
+	 * Checks the availability of fingerprint authentication with a single permission check.
+	 *
+	 * @return the {@link FingerprintManager} to authenticate with or {@code null} if fingerprint
+	 * authentication is not available
+	 */
+	@Nullable
+	FingerprintManager getAvailableFingerprintManager() {
+		if (!hasApis || fingerprintManager == null || !fingerprintPermissionGranted()) {
+			return null;
+		}
+		return fingerprintManager.isHardwareDetected() && fingerprintManager.hasEnrolledFingerprints() ? fingerprintManager : null;
+	}
+
 	CancellationSignal createCancellationSignal() {
 		return new CancellationSignal();
 	}
 
+	/**
+	 * @return handler of the {@link Looper} of the calling thread or {@code null} if the calling
+	 * thread has no {@link Looper}
+	 */
+	@Nullable
+	Handler createSubscriberHandler() {
+		Looper looper = Looper.myLooper();
+		return looper != null ? new Handler(looper) : null;
+	}
+
 	private boolean fingerprintPermissionGranted() {
 		return context.checkSelfPermission(USE_FINGERPRINT) == PackageManager.PERMISSION_GRANTED;
 	}
@@ -23,6 +23,8 @@ import android.hardware.fingerprint.FingerprintManager.AuthenticationResult;
 import android.hardware.fingerprint.FingerprintManager.CryptoObject;
 import android.os.Build;
 import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.Nullable;
 import android.support.annotation.RequiresApi;
 import android.support.annotation.RequiresPermission;
@@ -30,9 +32,13 @@ import android.support.annotation.RequiresPermission;
 import com.mtramin.rxfingerprint.data.FingerprintAuthenticationException;
 import com.mtramin.rxfingerprint.data.FingerprintUnavailableException;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import io.reactivex.Emitter;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.functions.Cancellable;
 
 import static android.Manifest.permission.USE_FINGERPRINT;
@@ -40,11 +46,19 @@ import static android.Manifest.permission.USE_FINGERPRINT;
 /**
  * Base observable for Fingerprint authentication. Provides abstract methods that allow
  * to alter the input and result of the authentication.
+ * <p/>
+ * The {@link CryptoObject} is initialized on the {@link PreparationScheduler}, as loading or
+ * creating keys can take considerable time. All results are delivered on the {@link Looper} of
+ * the subscribing thread if it has one.
+ * <p/>
+ * Sensor callbacks, and with them the crypto operation after a successful authentication, are
+ * received on the {@link CallbackHandler} if one is configured.
  */
 @SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
 abstract class FingerprintObservable<T> implements ObservableOnSubscribe<T> {
 
 	private final FingerprintApiWrapper fingerprintApiWrapper;
+	private final AtomicReference<CryptoObject> preparedCryptoObject = new AtomicReference<>();
 	CancellationSignal cancellationSignal;
 
 	/**
@@ -60,25 +74,58 @@ abstract class FingerprintObservable<T> implements ObservableOnSubscribe<T> {
 	@RequiresPermission(USE_FINGERPRINT)
 	@RequiresApi(Build.VERSION_CODES.M)
 	public void subscribe(ObservableEmitter<T> emitter) throws Exception {
-		if (fingerprintApiWrapper.isUnavailable()) {
-			emitter.onError(new FingerprintUnavailableException("Fingerprint authentication is not available on this device! Ensure that the device has a Fingerprint sensor and enrolled Fingerprints by calling RxFingerprint#isAvailable(Context) first"));
+		if (fingerprintApiWrapper.isApiUnavailable()) {
+			emitter.onError(createUnavailableException());
 			return;
 		}
 
-		AuthenticationCallback callback = createAuthenticationCallback(emitter);
-		cancellationSignal = fingerprintApiWrapper.createCancellationSignal();
-		CryptoObject cryptoObject = initCryptoObject(emitter);
-		//noinspection MissingPermission
-		fingerprintApiWrapper.getFingerprintManager().authenticate(cryptoObject, cancellationSignal, 0, callback, null);
+		Handler subscriberHandler = fingerprintApiWrapper.createSubscriberHandler();
+		final ObservableEmitter<T> callbackEmitter = subscriberHandler != null ? new HandlerEmitter<>(emitter, subscriberHandler) : emitter;
+		final CancellationSignal signal = fingerprintApiWrapper.createCancellationSignal();
+		cancellationSignal = signal;
 
+		final CompositeDisposable preparation = new CompositeDisposable();
 		emitter.setCancellable(new Cancellable() {
 			@Override
 			public void cancel() throws Exception {
-				if (cancellationSignal != null && !cancellationSignal.isCanceled()) {
-					cancellationSignal.cancel();
+				preparation.dispose();
+				if (signal != null && !signal.isCanceled()) {
+					signal.cancel();
 				}
 			}
 		});
+
+		Handler configuredHandler = CallbackHandler.get();
+		final PreparedAuthentication authentication = new PreparedAuthentication(callbackEmitter, signal,
+				configuredHandler != null ? configuredHandler : subscriberHandler);
+
+		CryptoObject prepared = preparedCryptoObject.getAndSet(null);
+		if (prepared != null) {
+			authentication.onCryptoObjectPrepared(prepared);
+		} else {
+			// Keys and ciphers are prepared while the availability of the sensor is checked
+			preparation.add(PreparationScheduler.get().scheduleDirect(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						authentication.onCryptoObjectPrepared(initCryptoObject(callbackEmitter));
+					} catch (Exception e) {
+						callbackEmitter.tryOnError(e);
+					}
+				}
+			}));
+		}
+
+		FingerprintManager fingerprintManager = fingerprintApiWrapper.getAvailableFingerprintManager();
+		if (fingerprintManager == null) {
+			callbackEmitter.tryOnError(createUnavailableException());
+			return;
+		}
+		authentication.onFingerprintManagerAvailable(fingerprintManager);
+	}
+
+	private static FingerprintUnavailableException createUnavailableException() {
+		return new FingerprintUnavailableException("Fingerprint authentication is not available on this device! Ensure that the device has a Fingerprint sensor and enrolled Fingerprints by calling RxFingerprint#isAvailable(Context) first");
 	}
 
 	private AuthenticationCallback createAuthenticationCallback(final ObservableEmitter<T> emitter) {
@@ -107,6 +154,45 @@ abstract class FingerprintObservable<T> implements ObservableOnSubscribe<T> {
 		};
 	}
 
+	/**
+	 * Initializes the {@link CryptoObject} for the next subscription ahead of time, so the
+	 * subscription can start the sensor right away.
+	 *
+	 * @return {@code true} if a {@link CryptoObject} was prepared
+	 */
+	boolean prepare() throws Exception {
+		CryptoObject cryptoObject = prepareCryptoObject();
+		preparedCryptoObject.set(cryptoObject);
+		return cryptoObject != null;
+	}
+
+	/**
+	 * Drops the {@link CryptoObject} initialized by {@link #prepare()} if it was not used yet.
+	 */
+	void releasePrepared() {
+		preparedCryptoObject.set(null);
+	}
+
+	/**
+	 * @return {@code true} if the next subscription uses a {@link CryptoObject} initialized by
+	 * {@link #prepare()}
+	 */
+	boolean isPrepared() {
+		return preparedCryptoObject.get() != null;
+	}
+
+	/**
+	 * Initializes the {@link CryptoObject} for the authentication without emitting anything. Only
+	 * called by {@link #prepare()}.
+	 *
+	 * @return the {@link CryptoObject} to authenticate with or {@code null} if this observable can
+	 * only initialize it once subscribed
+	 */
+	@Nullable
+	CryptoObject prepareCryptoObject() throws Exception {
+		return null;
+	}
+
 	/**
 	 * Method to initialize the {@link FingerprintManager.CryptoObject}
 	 * used for the fingerprint authentication.
@@ -151,4 +237,47 @@ abstract class FingerprintObservable<T> implements ObservableOnSubscribe<T> {
 	 * @param emitter current subscriber
 	 */
 	protected abstract void onAuthenticationFailed(ObservableEmitter<T> emitter);
+
+	/**
+	 * Joins the availability check of the sensor and the preparation of the {@link CryptoObject}.
+	 * Starts the authentication once both completed, on the thread that completed last.
+	 */
+	private class PreparedAuthentication {
+		private final ObservableEmitter<T> emitter;
+		private final CancellationSignal signal;
+		@Nullable private final Handler callbackHandler;
+		private final AtomicInteger pending = new AtomicInteger(2);
+
+		@Nullable private volatile CryptoObject cryptoObject;
+		@Nullable private volatile FingerprintManager fingerprintManager;
+
+		PreparedAuthentication(ObservableEmitter<T> emitter, CancellationSignal signal, @Nullable Handler callbackHandler) {
+			this.emitter = emitter;
+			this.signal = signal;
+			this.callbackHandler = callbackHandler;
+		}
+
+		void onCryptoObjectPrepared(@Nullable CryptoObject cryptoObject) {
+			this.cryptoObject = cryptoObject;
+			onStageCompleted();
+		}
+
+		void onFingerprintManagerAvailable(FingerprintManager fingerprintManager) {
+			this.fingerprintManager = fingerprintManager;
+			onStageCompleted();
+		}
+
+		private void onStageCompleted() {
+			if (pending.decrementAndGet() != 0 || emitter.isDisposed()) {
+				// Operation already completed or failed without fingerprint authentication
+				return;
+			}
+			try {
+				//noinspection MissingPermission
+				fingerprintManager.authenticate(cryptoObject, signal, 0, createAuthenticationCallback(emitter), callbackHandler);
+			} catch (Exception e) {
+				emitter.tryOnError(e);
+			}
+		}
+	}
 }
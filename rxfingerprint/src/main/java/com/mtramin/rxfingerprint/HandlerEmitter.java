@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import io.reactivex.ObservableEmitter;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Cancellable;
+
+/**
+ * {@link ObservableEmitter} that delivers all events on the {@link Looper} of the given
+ * {@link Handler}. Events emitted on another thread are posted to the {@link Handler} in order.
+ * <p/>
+ * The emitter reports itself as disposed as soon as a terminal event was emitted, even if that
+ * event was not delivered yet.
+ */
+class HandlerEmitter<T> implements ObservableEmitter<T> {
+
+	private final ObservableEmitter<T> actual;
+	private final Handler handler;
+	private volatile boolean terminated;
+
+	HandlerEmitter(ObservableEmitter<T> actual, Handler handler) {
+		this.actual = actual.serialize();
+		this.handler = handler;
+	}
+
+	@Override
+	public void onNext(@NonNull final T value) {
+		if (isCallbackThread()) {
+			actual.onNext(value);
+			return;
+		}
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				actual.onNext(value);
+			}
+		});
+	}
+
+	@Override
+	public void onError(@NonNull Throwable error) {
+		tryOnError(error);
+	}
+
+	@Override
+	public boolean tryOnError(@NonNull final Throwable error) {
+		if (isDisposed()) {
+			return false;
+		}
+		terminated = true;
+		if (isCallbackThread()) {
+			return actual.tryOnError(error);
+		}
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				actual.tryOnError(error);
+			}
+		});
+		return true;
+	}
+
+	@Override
+	public void onComplete() {
+		if (isDisposed()) {
+			return;
+		}
+		terminated = true;
+		if (isCallbackThread()) {
+			actual.onComplete();
+			return;
+		}
+		handler.post(new Runnable() {
+			@Override
+			public void run() {
+				actual.onComplete();
+			}
+		});
+	}
+
+	@Override
+	public void setDisposable(@Nullable Disposable disposable) {
+		actual.setDisposable(disposable);
+	}
+
+	@Override
+	public void setCancellable(@Nullable Cancellable cancellable) {
+		actual.setCancellable(cancellable);
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return terminated || actual.isDisposed();
+	}
+
+	@NonNull
+	@Override
+	public ObservableEmitter<T> serialize() {
+		return this;
+	}
+
+	private boolean isCallbackThread() {
+		return Looper.myLooper() == handler.getLooper();
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the aliases known to exist in the {@link KeyStore}.
+ * <p/>
+ * Known aliases are answered from memory. Unknown aliases fall back to a single
+ * {@link KeyStore#containsAlias(String)} lookup, so a stale index can never report a key as
+ * missing that actually exists.
+ */
+class KeyAliasIndex {
+
+	private final Set<String> aliases = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/**
+	 * @param keyStore keyStore to fall back to for unknown aliases
+	 * @param alias    alias to look up
+	 * @return {@code true} if an entry with the given alias exists
+	 */
+	boolean contains(KeyStore keyStore, String alias) throws KeyStoreException {
+		if (aliases.contains(alias)) {
+			return true;
+		}
+
+		if (keyStore.containsAlias(alias)) {
+			aliases.add(alias);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records that an entry with the given alias was created.
+	 *
+	 * @param alias alias of the created entry
+	 */
+	void add(String alias) {
+		aliases.add(alias);
+	}
+
+	/**
+	 * Records that the entry with the given alias was deleted.
+	 *
+	 * @param alias alias of the deleted entry
+	 */
+	void remove(String alias) {
+		aliases.remove(alias);
+	}
+
+	/**
+	 * Replaces the content of the index with all aliases currently stored in the given
+	 * {@link KeyStore}.
+	 *
+	 * @param keyStore keyStore to read the aliases from
+	 */
+	void reconcile(KeyStore keyStore) throws KeyStoreException {
+		Set<String> current = new HashSet<>();
+		Enumeration<String> enumeration = keyStore.aliases();
+		while (enumeration.hasMoreElements()) {
+			current.add(enumeration.nextElement());
+		}
+
+		aliases.retainAll(current);
+		aliases.addAll(current);
+	}
+}
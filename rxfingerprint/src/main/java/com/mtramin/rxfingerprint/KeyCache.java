@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.support.annotation.Nullable;
+
+import java.security.Key;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link Key}s by their alias in the {@link java.security.KeyStore}. Evicts the
+ * least recently used key once the maximum size is exceeded.
+ *
+ * @param <K> type of keys to cache
+ */
+class KeyCache<K extends Key> {
+
+	private final Map<String, K> keys;
+
+	KeyCache(int maxSize) {
+		keys = new LruMap<>(maxSize);
+	}
+
+	/**
+	 * @param alias alias of the key
+	 * @return the cached key or {@code null} if no key is cached for the alias
+	 */
+	@Nullable
+	synchronized K get(String alias) {
+		return keys.get(alias);
+	}
+
+	synchronized void put(String alias, K key) {
+		keys.put(alias, key);
+	}
+
+	synchronized void remove(String alias) {
+		keys.remove(alias);
+	}
+
+	synchronized void clear() {
+		keys.clear();
+	}
+
+	/**
+	 * Access ordered map that removes its eldest entry once the maximum size is exceeded.
+	 */
+	private static class LruMap<K extends Key> extends LinkedHashMap<String, K> {
+		private static final long serialVersionUID = 1L;
+
+		private final int maxSize;
+
+		LruMap(int maxSize) {
+			super(maxSize, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, K> eldest) {
+			return size() > maxSize;
+		}
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+/**
+ * Manages the key stored in the {@link java.security.KeyStore} under a single key name.
+ */
+interface KeyProvider {
+
+	/**
+	 * Prepares everything needed for a crypto operation with the key and creates a missing key,
+	 * which can take considerable time on first use.
+	 */
+	void prewarm() throws GeneralSecurityException, IOException;
+
+	/**
+	 * Replaces the key with a newly generated one. Data encrypted with the previous key cannot be
+	 * decrypted anymore.
+	 */
+	void rotateKey() throws GeneralSecurityException, IOException;
+}
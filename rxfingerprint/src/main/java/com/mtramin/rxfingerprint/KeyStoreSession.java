@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.CertificateException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.reactivex.Completable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Process-wide handle to the Android {@link KeyStore} shared by all {@link CipherProvider}s.
+ * <p/>
+ * Loading the {@link KeyStore} requires a round-trip to the keystore daemon. The loaded instance
+ * is therefore created lazily once and reused until it is explicitly invalidated.
+ * <p/>
+ * The session also maintains a {@link KeyAliasIndex} that answers whether a key exists without
+ * enumerating all aliases of the {@link KeyStore}. It is reconciled once in the background after
+ * the {@link KeyStore} was loaded for the first time.
+ * <p/>
+ * Public keys are cached per alias, so encryption with a public key does not need to access the
+ * {@link KeyStore} at all. Handles of secret and private keys are cached as well, so repeated
+ * operations with the same key can initialize their {@link javax.crypto.Cipher} right away. All
+ * cached keys are dropped when their entry is deleted or the application runs low on memory.
+ */
+class KeyStoreSession {
+	private static final int MAX_CACHED_KEYS = 32;
+
+	private static final KeyAliasIndex aliasIndex = new KeyAliasIndex();
+	private static final KeyCache<PublicKey> publicKeys = new KeyCache<>(MAX_CACHED_KEYS);
+	private static final KeyCache<Key> keyHandles = new KeyCache<>(MAX_CACHED_KEYS);
+	private static final Map<String, Boolean> timeBoundKeys = new ConcurrentHashMap<>();
+
+	private static volatile KeyStore keyStore;
+	private static boolean aliasIndexReconciled;
+	private static boolean memoryCallbacksRegistered;
+
+	/**
+	 * @return the loaded {@link KeyStore}. Will load the {@link KeyStore} if there is no
+	 * valid session yet.
+	 */
+	static KeyStore get() throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException {
+		KeyStore current = keyStore;
+		if (current == null) {
+			synchronized (KeyStoreSession.class) {
+				current = keyStore;
+				if (current == null) {
+					current = KeyStore.getInstance(CipherProvider.ANDROID_KEY_STORE);
+					current.load(null);
+					keyStore = current;
+					reconcileAliasIndex(current);
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * @param keyName alias of the entry
+	 * @return {@code true} if an entry with the given alias exists in the {@link KeyStore}
+	 */
+	static boolean containsAlias(String keyName) throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException {
+		return aliasIndex.contains(get(), keyName);
+	}
+
+	/**
+	 * Records that an entry with the given alias was created in the {@link KeyStore}.
+	 *
+	 * @param keyName alias of the created entry
+	 */
+	static void onEntryCreated(String keyName) {
+		aliasIndex.add(keyName);
+		evictKeys(keyName);
+	}
+
+	/**
+	 * Returns the handle of the secret or private key stored under the given alias.
+	 *
+	 * @param keyName alias of the entry
+	 * @return handle of the key or {@code null} if there is no such key
+	 */
+	static Key getKey(String keyName) throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException, UnrecoverableKeyException {
+		Key key = keyHandles.get(keyName);
+		if (key == null) {
+			key = get().getKey(keyName, null);
+			if (key != null) {
+				keyHandles.put(keyName, key);
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * @param keyName alias of the entry
+	 * @return whether the key of the given alias is usable for a duration after authentication or
+	 * {@code null} if this is not known yet
+	 */
+	@Nullable
+	static Boolean isTimeBound(String keyName) {
+		return timeBoundKeys.get(keyName);
+	}
+
+	/**
+	 * Records whether the key of the given alias is usable for a duration after authentication.
+	 *
+	 * @param keyName   alias of the entry
+	 * @param timeBound {@code true} if the key has an authentication validity duration
+	 */
+	static void setTimeBound(String keyName, boolean timeBound) {
+		timeBoundKeys.put(keyName, timeBound);
+	}
+
+	/**
+	 * Drops all cached keys of the given alias, e.g. because the key was permanently invalidated.
+	 *
+	 * @param keyName alias of the entry
+	 */
+	static void evictKeys(String keyName) {
+		publicKeys.remove(keyName);
+		keyHandles.remove(keyName);
+		timeBoundKeys.remove(keyName);
+	}
+
+	/**
+	 * Drops all cached keys once the application runs low on memory. Only registers once per
+	 * process.
+	 *
+	 * @param context context to register the memory callbacks with
+	 */
+	static void registerMemoryCallbacks(Context context) {
+		synchronized (KeyStoreSession.class) {
+			if (memoryCallbacksRegistered) {
+				return;
+			}
+			memoryCallbacksRegistered = true;
+		}
+
+		Context applicationContext = context.getApplicationContext();
+		if (applicationContext == null) {
+			applicationContext = context;
+		}
+		applicationContext.registerComponentCallbacks(new ComponentCallbacks2() {
+			@Override
+			public void onTrimMemory(int level) {
+				if (level >= TRIM_MEMORY_RUNNING_LOW) {
+					clearKeys();
+				}
+			}
+
+			@Override
+			public void onConfigurationChanged(Configuration newConfig) {
+				// not relevant for cached keys
+			}
+
+			@Override
+			public void onLowMemory() {
+				clearKeys();
+			}
+		});
+	}
+
+	/**
+	 * @return cache of public keys by their alias
+	 */
+	static KeyCache<PublicKey> publicKeys() {
+		return publicKeys;
+	}
+
+	/**
+	 * Deletes the entry with the given alias and invalidates the current session. The next call
+	 * to {@link #get()} will load the {@link KeyStore} again.
+	 *
+	 * @param keyName alias of the entry to delete
+	 */
+	static void deleteEntry(String keyName) throws KeyStoreException, CertificateException, NoSuchAlgorithmException, IOException {
+		synchronized (KeyStoreSession.class) {
+			get().deleteEntry(keyName);
+			aliasIndex.remove(keyName);
+			evictKeys(keyName);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Invalidates the current session. The next call to {@link #get()} will load the
+	 * {@link KeyStore} again.
+	 */
+	static void invalidate() {
+		synchronized (KeyStoreSession.class) {
+			keyStore = null;
+		}
+	}
+
+	private static void clearKeys() {
+		publicKeys.clear();
+		keyHandles.clear();
+		timeBoundKeys.clear();
+	}
+
+	private static void reconcileAliasIndex(final KeyStore keyStore) {
+		if (aliasIndexReconciled) {
+			return;
+		}
+		aliasIndexReconciled = true;
+
+		Completable.fromAction(new Action() {
+			@Override
+			public void run() throws Exception {
+				aliasIndex.reconcile(keyStore);
+			}
+		}).subscribeOn(Schedulers.io())
+				.subscribe(new Action() {
+					@Override
+					public void run() throws Exception {
+						// index is up to date
+					}
+				}, new Consumer<Throwable>() {
+					@Override
+					public void accept(Throwable throwable) throws Exception {
+						Logger.error("Reconciling key aliases failed.", throwable);
+					}
+				});
+	}
+
+	private KeyStoreSession() {
+		// hide
+	}
+}
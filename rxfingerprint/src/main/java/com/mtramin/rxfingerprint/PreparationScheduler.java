@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.support.annotation.Nullable;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Holds the {@link Scheduler} on which keys and ciphers are prepared before the fingerprint
+ * sensor is started. Uses {@link Schedulers#io()} unless configured otherwise.
+ */
+class PreparationScheduler {
+
+	@Nullable private static volatile Scheduler scheduler;
+
+	static Scheduler get() {
+		Scheduler current = scheduler;
+		return current != null ? current : Schedulers.io();
+	}
+
+	static void set(@Nullable Scheduler scheduler) {
+		PreparationScheduler.scheduler = scheduler;
+	}
+
+	private PreparationScheduler() {
+		// hide
+	}
+}
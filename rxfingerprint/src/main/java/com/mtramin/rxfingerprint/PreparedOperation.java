@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Operation whose key and cipher were already initialized, so {@link #authenticate()} starts the
+ * fingerprint sensor right away. Create one with
+ * {@link RxFingerprint#prepare(EncryptionMethod, android.content.Context, String, String)}, e.g.
+ * when the screen asking for authentication is shown.
+ * <p/>
+ * The initialized cipher occupies an operation of the Android KeyStore until it is used. It is
+ * released once the time to live passed or the operation is disposed. {@link #authenticate()}
+ * still works afterwards, but initializes the cipher again like a regular operation.
+ */
+public final class PreparedOperation<T> implements Disposable {
+
+	private final FingerprintObservable<T> operation;
+	private Disposable expiration;
+	private volatile boolean disposed;
+
+	/**
+	 * Initializes the {@link android.hardware.fingerprint.FingerprintManager.CryptoObject} of the
+	 * given operation and releases it again after the given time to live.
+	 *
+	 * @param operation  operation to prepare
+	 * @param timeToLive time after which the initialized cipher is released if it was not used
+	 * @param unit       unit of the time to live
+	 * @return prepared operation
+	 */
+	static <T> PreparedOperation<T> create(FingerprintObservable<T> operation, long timeToLive, TimeUnit unit) throws Exception {
+		operation.prepare();
+		final PreparedOperation<T> preparedOperation = new PreparedOperation<>(operation);
+		preparedOperation.expiration = Schedulers.computation().scheduleDirect(new Runnable() {
+			@Override
+			public void run() {
+				preparedOperation.dispose();
+			}
+		}, timeToLive, unit);
+		return preparedOperation;
+	}
+
+	private PreparedOperation(FingerprintObservable<T> operation) {
+		this.operation = operation;
+	}
+
+	/**
+	 * Starts the fingerprint sensor for the prepared operation. Only the first subscription uses
+	 * the prepared cipher.
+	 *
+	 * @return Observable result of the operation
+	 */
+	@NonNull
+	public Observable<T> authenticate() {
+		return Observable.create(operation);
+	}
+
+	/**
+	 * @return {@code true} if the next call to {@link #authenticate()} uses the prepared cipher
+	 */
+	public boolean isReady() {
+		return !disposed && operation.isPrepared();
+	}
+
+	/**
+	 * Releases the prepared cipher if it was not used yet.
+	 */
+	@Override
+	public void dispose() {
+		disposed = true;
+		operation.releasePrepared();
+		if (expiration != null) {
+			expiration.dispose();
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+}
@@ -19,6 +19,8 @@ package com.mtramin.rxfingerprint;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyPermanentlyInvalidatedException;
 import android.security.keystore.KeyProperties;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -26,13 +28,15 @@ import android.support.annotation.Nullable;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
+import java.security.KeyPair;
 import java.security.KeyPairGenerator;
-import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
+import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.KeySpec;
 import java.security.spec.X509EncodedKeySpec;
 
@@ -47,35 +51,94 @@ class RsaCipherProvider extends CipherProvider {
 	RsaCipherProvider(@NonNull Context context, @Nullable String keyName, boolean keyInvalidatedByBiometricEnrollment) throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException {
 		super(context, keyName, keyInvalidatedByBiometricEnrollment);
 	}
+
 	@Override
 	@TargetApi(Build.VERSION_CODES.M)
 	Cipher cipherForEncryption() throws GeneralSecurityException, IOException {
-		KeyPairGenerator keyGenerator = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_RSA, ANDROID_KEY_STORE);
+		Cipher cipher = createCipher();
+		AlgorithmParameterSpec parameters = cipherParameters();
+		if (parameters == null) {
+			cipher.init(Cipher.ENCRYPT_MODE, getPublicKey());
+		} else {
+			cipher.init(Cipher.ENCRYPT_MODE, getPublicKey(), parameters);
+		}
 
-		keyGenerator.initialize(getKeyGenParameterSpecBuilder(keyName, KeyProperties.BLOCK_MODE_ECB, KeyProperties.ENCRYPTION_PADDING_RSA_PKCS1, invalidatedByBiometricEnrollment)
-				.build());
+		return cipher;
+	}
+
+	/**
+	 * @return public key of this provider. The key is detached from the {@link KeyStore} and can
+	 * be used for encryption without any {@link KeyStore} access.
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	PublicKey getPublicKey() throws GeneralSecurityException, IOException {
+		PublicKey publicKey = KeyStoreSession.publicKeys().get(keyName);
+		if (publicKey == null) {
+			KeyFactory keyFactory = KeyFactory.getInstance(KeyProperties.KEY_ALGORITHM_RSA);
+			publicKey = getPublicKey(keyFactory, findOrCreatePublicKey());
+			KeyStoreSession.publicKeys().put(keyName, publicKey);
+		}
+		return publicKey;
+	}
 
-		keyGenerator.generateKeyPair();
+	@Override
+	void findOrCreateKey() throws GeneralSecurityException, IOException {
+		getPublicKey();
+		getPrivateKey(keyName);
+	}
 
-		KeyFactory keyFactory = KeyFactory.getInstance(KeyProperties.KEY_ALGORITHM_RSA);
-		Cipher cipher = createCipher();
-		cipher.init(Cipher.ENCRYPT_MODE, getPublicKey(keyFactory, keyStore));
+	@Override
+	void generateKey() throws GeneralSecurityException {
+		createKeyPair(keyName, encryptionPadding(), digests(), invalidatedByBiometricEnrollment);
+	}
 
-		return cipher;
+	private PublicKey findOrCreatePublicKey() throws GeneralSecurityException, IOException {
+		if (keyExists(keyName)) {
+			Certificate certificate = KeyStoreSession.get().getCertificate(keyName);
+			if (certificate != null) {
+				return certificate.getPublicKey();
+			}
+			Logger.warn("Key was removed from the KeyStore. Creating a new key.");
+		}
+		return createKeyPair(keyName, encryptionPadding(), digests(), invalidatedByBiometricEnrollment).getPublic();
 	}
 
-	Cipher getCipherForDecryption() throws GeneralSecurityException {
+	@TargetApi(Build.VERSION_CODES.M)
+	private static KeyPair createKeyPair(String keyName, String encryptionPadding, String[] digests, boolean invalidatedByBiometricEnrollment) throws GeneralSecurityException {
+		KeyPairGenerator keyGenerator = KeyPairGenerator.getInstance(KeyProperties.KEY_ALGORITHM_RSA, ANDROID_KEY_STORE);
+
+		KeyGenParameterSpec.Builder builder = getKeyGenParameterSpecBuilder(keyName, KeyProperties.BLOCK_MODE_ECB, encryptionPadding, invalidatedByBiometricEnrollment);
+		if (digests.length > 0) {
+			builder.setDigests(digests);
+		}
+		keyGenerator.initialize(builder.build());
+
+		KeyPair keyPair = keyGenerator.generateKeyPair();
+		KeyStoreSession.onEntryCreated(keyName);
+		return keyPair;
+	}
+
+	Cipher getCipherForDecryption() throws GeneralSecurityException, IOException {
 		Cipher cipher = createCipher();
-		cipher.init(Cipher.DECRYPT_MODE, getPrivateKey(keyStore, keyName));
+		AlgorithmParameterSpec parameters = cipherParameters();
+		try {
+			if (parameters == null) {
+				cipher.init(Cipher.DECRYPT_MODE, getPrivateKey(keyName));
+			} else {
+				cipher.init(Cipher.DECRYPT_MODE, getPrivateKey(keyName), parameters);
+			}
+		} catch (KeyPermanentlyInvalidatedException e) {
+			KeyStoreSession.evictKeys(keyName);
+			throw e;
+		}
 		return cipher;
 	}
 
-	private PrivateKey getPrivateKey(KeyStore keyStore, String keyAlias) throws GeneralSecurityException {
-		return (PrivateKey) keyStore.getKey(keyAlias, null);
+	private PrivateKey getPrivateKey(String keyAlias) throws GeneralSecurityException, IOException {
+		return (PrivateKey) KeyStoreSession.getKey(keyAlias);
 	}
 
-	private PublicKey getPublicKey(KeyFactory keyFactory, KeyStore keyStore) throws GeneralSecurityException {
-		PublicKey publicKey = keyStore.getCertificate(keyName).getPublicKey();
+	private PublicKey getPublicKey(KeyFactory keyFactory, PublicKey publicKey) throws GeneralSecurityException {
 		KeySpec spec = new X509EncodedKeySpec(publicKey.getEncoded());
 		return keyFactory.generatePublic(spec);
 	}
@@ -85,6 +148,29 @@ class RsaCipherProvider extends CipherProvider {
 	Cipher createCipher() throws NoSuchPaddingException, NoSuchAlgorithmException {
 		return Cipher.getInstance(KeyProperties.KEY_ALGORITHM_RSA + "/"
 				+ KeyProperties.BLOCK_MODE_ECB + "/"
-				+ KeyProperties.ENCRYPTION_PADDING_RSA_PKCS1);
+				+ encryptionPadding());
+	}
+
+	/**
+	 * @return encryption padding of the key and cipher of this provider
+	 */
+	@TargetApi(Build.VERSION_CODES.M)
+	String encryptionPadding() {
+		return KeyProperties.ENCRYPTION_PADDING_RSA_PKCS1;
+	}
+
+	/**
+	 * @return digests the key of this provider is authorized for
+	 */
+	String[] digests() {
+		return new String[0];
+	}
+
+	/**
+	 * @return parameters to initialize the cipher of this provider with, {@code null} for none
+	 */
+	@Nullable
+	AlgorithmParameterSpec cipherParameters() {
+		return null;
 	}
 }
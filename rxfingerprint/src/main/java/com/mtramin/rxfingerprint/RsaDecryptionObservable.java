@@ -23,9 +23,10 @@ import android.hardware.fingerprint.FingerprintManager.CryptoObject;
 import android.support.annotation.Nullable;
 
 import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
-import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
 import com.mtramin.rxfingerprint.data.FingerprintResult;
 
+import java.nio.ByteBuffer;
+
 import javax.crypto.Cipher;
 
 import io.reactivex.Observable;
@@ -36,45 +37,60 @@ import io.reactivex.ObservableEmitter;
 class RsaDecryptionObservable extends FingerprintObservable<FingerprintDecryptionResult> {
 
 	private final RsaCipherProvider cipherProvider;
-	private final String encryptedString;
-	private final EncodingProvider encodingProvider;
+	private final ByteBuffer encrypted;
+	private final DecryptionFormat format;
 
 	/**
-	 * Creates a new AesEncryptionObservable that will listen to fingerprint authentication
-	 * to encrypt the given data.
+	 * Creates a new RsaDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt the given data.
 	 *
-	 * @param context   context to use
-	 * @param keyName   keyName to use for the decryption
-	 * @param encrypted data to encrypt  @return Observable {@link FingerprintEncryptionResult}
+	 * @param context      context to use
+	 * @param keyName      keyName to use for the decryption
+	 * @param cryptoData   data previously encrypted by RxFingerprint
+	 * @param format       form in which the decrypted data is returned
 	 * @return Observable result of the decryption
 	 */
-	static Observable<FingerprintDecryptionResult> create(Context context, String keyName, String encrypted) {
+	static Observable<FingerprintDecryptionResult> create(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) {
 		try {
-			return Observable.create(new RsaDecryptionObservable(new FingerprintApiWrapper(context),
-					new RsaCipherProvider(context, keyName),
-					encrypted,
-					new Base64Provider()));
+			return Observable.create(newInstance(context, keyName, cryptoData, format));
 		} catch (Exception e) {
 			return Observable.error(e);
 		}
 	}
 
+	/**
+	 * Creates a new RsaDecryptionObservable without subscribing to it, e.g. to prepare its
+	 * {@link CryptoObject} ahead of time.
+	 */
+	static RsaDecryptionObservable newInstance(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) throws Exception {
+		RsaCipherProvider cipherProvider = new RsaCipherProvider(context, keyName);
+		cryptoData.verify(EncryptionMethod.RSA, cipherProvider.keyName);
+		return new RsaDecryptionObservable(new FingerprintApiWrapper(context),
+				cipherProvider,
+				cryptoData.getMessageBuffer(),
+				format);
+	}
+
 	private RsaDecryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
 									RsaCipherProvider cipherProvider,
-									String encrypted,
-									EncodingProvider encodingProvider) {
+									ByteBuffer encrypted,
+									DecryptionFormat format) {
 		super(fingerprintApiWrapper);
 		this.cipherProvider = cipherProvider;
-		encryptedString = encrypted;
-		this.encodingProvider = encodingProvider;
+		this.encrypted = encrypted;
+		this.format = format;
+	}
+
+	@Override
+	CryptoObject prepareCryptoObject() throws Exception {
+		return new CryptoObject(cipherProvider.getCipherForDecryption());
 	}
 
 	@Nullable
 	@Override
 	protected CryptoObject initCryptoObject(ObservableEmitter<FingerprintDecryptionResult> subscriber) {
 		try {
-			Cipher cipher = cipherProvider.getCipherForDecryption();
-			return new CryptoObject(cipher);
+			return prepareCryptoObject();
 		} catch (Exception e) {
 			subscriber.onError(e);
 			return null;
@@ -85,9 +101,7 @@ class RsaDecryptionObservable extends FingerprintObservable<FingerprintDecryptio
 	protected void onAuthenticationSucceeded(ObservableEmitter<FingerprintDecryptionResult> emitter, AuthenticationResult result) {
 		try {
 			Cipher cipher = result.getCryptoObject().getCipher();
-			byte[] bytes = cipher.doFinal(encodingProvider.decode(encryptedString));
-
-			emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.AUTHENTICATED, null, ConversionUtils.toChars(bytes)));
+			emitter.onNext(format.decrypt(cipher, encrypted));
 			emitter.onComplete();
 		} catch (Exception e) {
 			Logger.error("Unable to decrypt given value. RxFingerprint is only able to decrypt values previously encrypted by RxFingerprint with the same encryption mode.", e);
@@ -20,9 +20,13 @@ import android.content.Context;
 import android.support.annotation.VisibleForTesting;
 
 import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
-import com.mtramin.rxfingerprint.data.FingerprintResult;
 import com.mtramin.rxfingerprint.data.FingerprintUnavailableException;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import javax.crypto.Cipher;
 
 import io.reactivex.Observable;
@@ -33,7 +37,7 @@ class RsaEncryptionObservable implements ObservableOnSubscribe<FingerprintEncryp
 
 	private final FingerprintApiWrapper fingerprintApiWrapper;
 	private final RsaCipherProvider cipherProvider;
-	private final char[] toEncrypt;
+	private final List<ByteBuffer> toEncrypt;
 	private final EncodingProvider encodingProvider;
 
 	/**
@@ -45,14 +49,68 @@ class RsaEncryptionObservable implements ObservableOnSubscribe<FingerprintEncryp
 	 * @param toEncrypt data to encrypt  @return Observable {@link FingerprintEncryptionResult}
 	 */
 	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, char[] toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
-		if (toEncrypt == null) {
-			return Observable.error(new IllegalArgumentException("String to be encrypted is null. Can only encrypt valid strings"));
+		return create(context, keyName, Collections.singletonList(toEncrypt), keyInvalidatedByBiometricEnrollment);
+	}
+
+	/**
+	 * Creates a new RsaEncryptionObservable that will encrypt all of the given values. Emits one
+	 * result per value in the given order.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, Iterable<char[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		List<byte[]> values = new ArrayList<>();
+		for (char[] value : toEncrypt) {
+			if (value == null) {
+				return Observable.error(new IllegalArgumentException("String to be encrypted is null. Can only encrypt valid strings"));
+			}
+			values.add(ConversionUtils.toBytes(value));
 		}
+		return create(context, keyName, values, keyInvalidatedByBiometricEnrollment);
+	}
+
+	/**
+	 * Creates a new RsaEncryptionObservable that will encrypt all of the given binary values.
+	 * Emits one result per value in the given order.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt. Will be cleared after encryption.
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, List<byte[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		if (toEncrypt.isEmpty()) {
+			return Observable.empty();
+		}
+
 		try {
 			return Observable.create(new RsaEncryptionObservable(new FingerprintApiWrapper(context),
 					new RsaCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment),
-					toEncrypt,
-					new Base64Provider()));
+					Encoding.getProvider(),
+					CipherUtils.wrap(toEncrypt)));
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	/**
+	 * Creates a new RsaEncryptionObservable that will encrypt the content of the given
+	 * {@link SecureBuffer}.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt value to encrypt. Will be wiped after encryption.
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, SecureBuffer toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		try {
+			return Observable.create(new RsaEncryptionObservable(new FingerprintApiWrapper(context),
+					new RsaCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment),
+					Encoding.getProvider(),
+					Collections.singletonList(toEncrypt.content())));
 		} catch (Exception e) {
 			return Observable.error(e);
 		}
@@ -63,12 +121,35 @@ class RsaEncryptionObservable implements ObservableOnSubscribe<FingerprintEncryp
 							RsaCipherProvider cipherProvider,
 							char[] toEncrypt,
 							EncodingProvider encodingProvider) {
+		this(fingerprintApiWrapper, cipherProvider, Collections.singletonList(toEncrypt), encodingProvider);
+	}
+
+	@VisibleForTesting
+	RsaEncryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+							RsaCipherProvider cipherProvider,
+							List<char[]> toEncrypt,
+							EncodingProvider encodingProvider) {
+		this(fingerprintApiWrapper, cipherProvider, encodingProvider, CipherUtils.wrap(toBytes(toEncrypt)));
+	}
+
+	private RsaEncryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+									RsaCipherProvider cipherProvider,
+									EncodingProvider encodingProvider,
+									List<ByteBuffer> toEncrypt) {
 		this.fingerprintApiWrapper = fingerprintApiWrapper;
 		this.cipherProvider = cipherProvider;
 		this.toEncrypt = toEncrypt;
 		this.encodingProvider = encodingProvider;
 	}
 
+	private static List<byte[]> toBytes(List<char[]> values) {
+		List<byte[]> bytes = new ArrayList<>(values.size());
+		for (char[] value : values) {
+			bytes.add(ConversionUtils.toBytes(value));
+		}
+		return bytes;
+	}
+
 	@Override
 	public void subscribe(ObservableEmitter<FingerprintEncryptionResult> emitter) throws Exception {
 		if (fingerprintApiWrapper.isUnavailable()) {
@@ -78,10 +159,12 @@ class RsaEncryptionObservable implements ObservableOnSubscribe<FingerprintEncryp
 
 		try {
 			Cipher cipher = cipherProvider.getCipherForEncryption();
-			byte[] encryptedBytes = cipher.doFinal(ConversionUtils.toBytes(toEncrypt));
+			for (ByteBuffer value : toEncrypt) {
+				byte[] encryptedBytes = CipherUtils.doFinal(cipher, value);
+				SecureBuffer.wipe(value);
 
-			String encryptedString = encodingProvider.encode(encryptedBytes);
-			emitter.onNext(new FingerprintEncryptionResult(FingerprintResult.AUTHENTICATED, null, encryptedString));
+				emitter.onNext(new CryptoDataEncryptionResult(CryptoData.fromBytes(encodingProvider, EncryptionMethod.RSA, cipherProvider.keyName, encryptedBytes, new byte[0])));
+			}
 			emitter.onComplete();
 		} catch (Exception e) {
 			Logger.error(String.format("Error writing value for key: %s", cipherProvider.keyName), e);
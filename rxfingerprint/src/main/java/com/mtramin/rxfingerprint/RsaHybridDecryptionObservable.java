@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.hardware.fingerprint.FingerprintManager.AuthenticationResult;
+import android.hardware.fingerprint.FingerprintManager.CryptoObject;
+import android.support.annotation.Nullable;
+
+import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintResult;
+
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+
+/**
+ * Decrypts data with {@link EncryptionMethod#RSA_HYBRID}. Once the user authenticated, the data
+ * key of the value is unwrapped with the RSA private key and decrypts the value in-process.
+ * <p/>
+ * The data handed in must be previously encrypted by a {@link RsaHybridEncryptionObservable}.
+ */
+@SuppressLint("NewApi") // SDK check happens in {@link FingerprintObservable#subscribe}
+class RsaHybridDecryptionObservable extends FingerprintObservable<FingerprintDecryptionResult> {
+
+	private final RsaOaepCipherProvider cipherProvider;
+	private final EnvelopeData envelopeData;
+	private final DecryptionFormat format;
+
+	/**
+	 * Creates a new RsaHybridDecryptionObservable that will listen to fingerprint authentication
+	 * to decrypt the given data.
+	 *
+	 * @param context    context to use
+	 * @param keyName    keyName to use for the decryption
+	 * @param cryptoData data previously encrypted by RxFingerprint
+	 * @param format     form in which the decrypted data is returned
+	 * @return Observable result of the decryption
+	 */
+	static Observable<FingerprintDecryptionResult> create(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) {
+		try {
+			return Observable.create(newInstance(context, keyName, cryptoData, format));
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	/**
+	 * Creates a new RsaHybridDecryptionObservable without subscribing to it, e.g. to prepare its
+	 * {@link CryptoObject} ahead of time.
+	 */
+	static RsaHybridDecryptionObservable newInstance(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) throws Exception {
+		RsaOaepCipherProvider cipherProvider = new RsaOaepCipherProvider(context, keyName);
+		cryptoData.verify(EncryptionMethod.RSA_HYBRID, cipherProvider.keyName);
+		return new RsaHybridDecryptionObservable(new FingerprintApiWrapper(context),
+				cipherProvider,
+				EnvelopeData.fromBytes(cryptoData.getMessageBuffer(), EnvelopeData.LONG_KEY_LENGTH),
+				format);
+	}
+
+	private RsaHybridDecryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+										  RsaOaepCipherProvider cipherProvider,
+										  EnvelopeData envelopeData,
+										  DecryptionFormat format) {
+		super(fingerprintApiWrapper);
+		this.cipherProvider = cipherProvider;
+		this.envelopeData = envelopeData;
+		this.format = format;
+	}
+
+	@Override
+	CryptoObject prepareCryptoObject() throws Exception {
+		return new CryptoObject(cipherProvider.getCipherForDecryption());
+	}
+
+	@Nullable
+	@Override
+	protected CryptoObject initCryptoObject(ObservableEmitter<FingerprintDecryptionResult> subscriber) {
+		try {
+			return prepareCryptoObject();
+		} catch (Exception e) {
+			subscriber.onError(e);
+			return null;
+		}
+	}
+
+	@Override
+	protected void onAuthenticationSucceeded(ObservableEmitter<FingerprintDecryptionResult> emitter, AuthenticationResult result) {
+		byte[] dataKey = null;
+		try {
+			Cipher cipher = result.getCryptoObject().getCipher();
+			dataKey = cipher.doFinal(envelopeData.getWrappedKey());
+
+			emitter.onNext(envelopeData.open(dataKey, format));
+			emitter.onComplete();
+		} catch (Exception e) {
+			Logger.error("Unable to decrypt given value. RxFingerprint is only able to decrypt values previously encrypted by RxFingerprint with the same encryption mode.", e);
+			emitter.onError(cipherProvider.mapCipherFinalOperationException(e));
+		} finally {
+			if (dataKey != null) {
+				Arrays.fill(dataKey, (byte) 0);
+			}
+		}
+	}
+
+	@Override
+	protected void onAuthenticationHelp(ObservableEmitter<FingerprintDecryptionResult> emitter, int helpMessageId, String helpString) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.HELP, helpString, null));
+	}
+
+	@Override
+	protected void onAuthenticationFailed(ObservableEmitter<FingerprintDecryptionResult> emitter) {
+		emitter.onNext(new FingerprintDecryptionResult(FingerprintResult.FAILED, null, null));
+	}
+}
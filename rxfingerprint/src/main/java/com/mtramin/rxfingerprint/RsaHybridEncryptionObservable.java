@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.content.Context;
+
+import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintUnavailableException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.crypto.Cipher;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+
+/**
+ * Encrypts data with {@link EncryptionMethod#RSA_HYBRID}. A new random data key encrypts all of
+ * the given values in-process and is wrapped with the RSA public key. No fingerprint
+ * authentication is needed and the values can be of any size.
+ */
+class RsaHybridEncryptionObservable implements ObservableOnSubscribe<FingerprintEncryptionResult> {
+
+	private final FingerprintApiWrapper fingerprintApiWrapper;
+	private final RsaOaepCipherProvider cipherProvider;
+	private final List<ByteBuffer> toEncrypt;
+	private final EncodingProvider encodingProvider;
+
+	/**
+	 * Creates a new RsaHybridEncryptionObservable that will encrypt all of the given values.
+	 * Emits one result per value in the given order.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, Iterable<char[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		List<byte[]> values = new ArrayList<>();
+		for (char[] value : toEncrypt) {
+			if (value == null) {
+				return Observable.error(new IllegalArgumentException("String to be encrypted is null. Can only encrypt valid strings"));
+			}
+			values.add(ConversionUtils.toBytes(value));
+		}
+		return create(context, keyName, values, keyInvalidatedByBiometricEnrollment);
+	}
+
+	/**
+	 * Creates a new RsaHybridEncryptionObservable that will encrypt all of the given binary
+	 * values. Emits one result per value in the given order.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt values to encrypt. Will be cleared after encryption.
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, List<byte[]> toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		if (toEncrypt.isEmpty()) {
+			return Observable.empty();
+		}
+		return fromBuffers(context, keyName, CipherUtils.wrap(toEncrypt), keyInvalidatedByBiometricEnrollment);
+	}
+
+	/**
+	 * Creates a new RsaHybridEncryptionObservable that will encrypt the content of the given
+	 * {@link SecureBuffer}.
+	 *
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore
+	 * @param toEncrypt value to encrypt. Will be wiped after encryption.
+	 * @return Observable {@link FingerprintEncryptionResult}
+	 */
+	static Observable<FingerprintEncryptionResult> create(Context context, String keyName, SecureBuffer toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		try {
+			return fromBuffers(context, keyName, Collections.singletonList(toEncrypt.content()), keyInvalidatedByBiometricEnrollment);
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	private static Observable<FingerprintEncryptionResult> fromBuffers(Context context, String keyName, List<ByteBuffer> toEncrypt, boolean keyInvalidatedByBiometricEnrollment) {
+		try {
+			return Observable.create(new RsaHybridEncryptionObservable(new FingerprintApiWrapper(context),
+					new RsaOaepCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment),
+					toEncrypt,
+					Encoding.getProvider()));
+		} catch (Exception e) {
+			return Observable.error(e);
+		}
+	}
+
+	private RsaHybridEncryptionObservable(FingerprintApiWrapper fingerprintApiWrapper,
+										  RsaOaepCipherProvider cipherProvider,
+										  List<ByteBuffer> toEncrypt,
+										  EncodingProvider encodingProvider) {
+		if (toEncrypt.contains(null)) {
+			throw new NullPointerException("String to be encrypted is null. Can only encrypt valid strings");
+		}
+		this.fingerprintApiWrapper = fingerprintApiWrapper;
+		this.cipherProvider = cipherProvider;
+		this.toEncrypt = toEncrypt;
+		this.encodingProvider = encodingProvider;
+	}
+
+	@Override
+	public void subscribe(ObservableEmitter<FingerprintEncryptionResult> emitter) throws Exception {
+		if (fingerprintApiWrapper.isUnavailable()) {
+			emitter.onError(new FingerprintUnavailableException("Fingerprint authentication is not available on this device! Ensure that the device has a Fingerprint sensor and enrolled Fingerprints by calling RxFingerprint#isAvailable(Context) first"));
+			return;
+		}
+
+		byte[] dataKey = EnvelopeData.generateDataKey();
+		try {
+			Cipher cipher = cipherProvider.getCipherForEncryption();
+			byte[] wrappedKey = cipher.doFinal(dataKey);
+
+			for (ByteBuffer value : toEncrypt) {
+				EnvelopeData envelopeData = EnvelopeData.seal(dataKey, wrappedKey, value);
+
+				emitter.onNext(new CryptoDataEncryptionResult(CryptoData.fromBytes(encodingProvider, EncryptionMethod.RSA_HYBRID, cipherProvider.keyName, envelopeData.toBytes(EnvelopeData.LONG_KEY_LENGTH), new byte[0])));
+			}
+			emitter.onComplete();
+		} catch (Exception e) {
+			Logger.error(String.format("Error writing value for key: %s", cipherProvider.keyName), e);
+			emitter.onError(e);
+		} finally {
+			Arrays.fill(dataKey, (byte) 0);
+		}
+	}
+}
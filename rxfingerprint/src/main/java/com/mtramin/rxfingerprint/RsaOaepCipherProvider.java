@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.security.keystore.KeyProperties;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+
+/**
+ * Provides ciphers for {@link EncryptionMethod#RSA_HYBRID}. The key pair is generated for
+ * RSA/OAEP with SHA-256. MGF1 uses SHA-1, the only digest the Android
+ * {@link java.security.KeyStore} supports for it on all versions.
+ * <p/>
+ * A key pair of {@link EncryptionMethod#RSA} is only authorized for PKCS#1 padding. The key pair
+ * is therefore stored under the given key name with {@link #ALIAS_SUFFIX} appended, so both
+ * methods can be used with the same key name.
+ */
+class RsaOaepCipherProvider extends RsaCipherProvider {
+	static final String ALIAS_SUFFIX = ".rsa_oaep";
+	private static final AlgorithmParameterSpec OAEP_PARAMETERS = new OAEPParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA1, PSource.PSpecified.DEFAULT);
+
+	RsaOaepCipherProvider(@NonNull Context context, @Nullable String keyName) throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException {
+		this(context, keyName, true);
+	}
+
+	RsaOaepCipherProvider(@NonNull Context context, @Nullable String keyName, boolean keyInvalidatedByBiometricEnrollment) throws CertificateException, NoSuchAlgorithmException, KeyStoreException, IOException {
+		super(context, keyNameOrDefault(context, keyName) + ALIAS_SUFFIX, keyInvalidatedByBiometricEnrollment);
+	}
+
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	String encryptionPadding() {
+		return KeyProperties.ENCRYPTION_PADDING_RSA_OAEP;
+	}
+
+	@Override
+	@TargetApi(Build.VERSION_CODES.M)
+	String[] digests() {
+		return new String[]{KeyProperties.DIGEST_SHA256};
+	}
+
+	@Override
+	AlgorithmParameterSpec cipherParameters() {
+		return OAEP_PARAMETERS;
+	}
+}
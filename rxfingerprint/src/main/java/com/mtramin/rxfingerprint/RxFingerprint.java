@@ -16,7 +16,9 @@
 
 package com.mtramin.rxfingerprint;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
+import android.os.Handler;
 import android.security.keystore.KeyPermanentlyInvalidatedException;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -24,8 +26,25 @@ import android.support.annotation.Nullable;
 import com.mtramin.rxfingerprint.data.FingerprintAuthenticationResult;
 import com.mtramin.rxfingerprint.data.FingerprintDecryptionResult;
 import com.mtramin.rxfingerprint.data.FingerprintEncryptionResult;
+import com.mtramin.rxfingerprint.data.FingerprintUnavailableException;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableSource;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Entry point for RxFingerprint. Contains all the base methods you need to interact with the
@@ -45,6 +64,9 @@ import io.reactivex.Observable;
  * necessary hardware (a sensor) and the user has to have enrolled at least one fingerprint.
  */
 public class RxFingerprint {
+	private static final int MAX_PREWARM_CONCURRENCY = 4;
+	private static final long DEFAULT_PREPARED_TTL_SECONDS = 30;
+
     /**
      * Authenticate the user with his fingerprint. This will enable the fingerprint sensor on the
      * device and wait for the user to touch the sensor with his finger.
@@ -224,6 +246,10 @@ public class RxFingerprint {
      * The encrypted string should be exactly the one you previously received as a result of the
      * {@link #encrypt(Context, String, String)} method.
      * <p/>
+     * The {@link EncryptionMethod} is read from the encrypted string, so this also decrypts values
+     * encrypted with {@link #encrypt(EncryptionMethod, Context, String, String)}. Strings encrypted
+     * by previous versions of RxFingerprint are decrypted with {@link EncryptionMethod#AES}.
+     * <p/>
      * The resulting {@link FingerprintDecryptionResult} will contain the decrypted string as a
      * String and is accessible via {@link FingerprintDecryptionResult#getDecrypted()} if the
      * authentication and decryption was successful.
@@ -357,7 +383,123 @@ public class RxFingerprint {
 																																boolean keyInvalidatedByBiometricEnrollment) {
 		switch (method) {
 			case AES:
-				return AesEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
+			case AES_GCM:
+				return AesEncryptionObservable.create(method, context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
+			case AES_ENVELOPE:
+				return EnvelopeEncryptionObservable.create(context, keyName, Collections.singletonList(toEncrypt), keyInvalidatedByBiometricEnrollment, 0);
+			case EC:
+				return EcEncryptionObservable.create(context, keyName, Collections.singletonList(toEncrypt), keyInvalidatedByBiometricEnrollment);
+			case RSA_HYBRID:
+				return RsaHybridEncryptionObservable.create(context, keyName, Collections.singletonList(toEncrypt), keyInvalidatedByBiometricEnrollment);
+			case RSA:
+				return RsaEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
+			default:
+				return Observable.error(new IllegalArgumentException("Unknown encryption method: " + method));
+		}
+	}
+
+	/**
+	 * Encrypt data with the given {@link EncryptionMethod} using a key that stays usable for the
+	 * given duration after the user authenticated. Behaves like
+	 * {@link #encrypt(EncryptionMethod, Context, String, char[], boolean)}, but while the user
+	 * authenticated recently enough this and any further operation with the same keyName
+	 * completes right away without enabling the fingerprint sensor. Once the session expired the
+	 * fingerprint sensor is enabled again automatically.
+	 * <p>
+	 * The session validity is fixed when the key is created. Keys that already exist keep their
+	 * original behavior, so use a keyName dedicated to authentication sessions.
+	 * Only {@link EncryptionMethod#AES}, {@link EncryptionMethod#AES_GCM} and
+	 * {@link EncryptionMethod#AES_ENVELOPE} support authentication sessions.
+	 *
+	 * @param method          the encryption method to use
+	 * @param context         context to use
+	 * @param keyName         name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt       data to encrypt
+	 * @param keyInvalidatedByBiometricEnrollment whether or not the key will be invalidated when fingerprints are added
+	 *                                            or changed. Works only on Android N(API 24) and above.
+	 * @param sessionValidity duration for which the key is usable after the user authenticated.
+	 *                        Needs to be at least one second.
+	 * @param unit            time unit of the sessionValidity
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted data.
+	 * Will complete once the operation was successful or failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encrypt(@NonNull EncryptionMethod method,
+																  @NonNull Context context,
+																  @Nullable String keyName,
+																  @NonNull char[] toEncrypt,
+																  boolean keyInvalidatedByBiometricEnrollment,
+																  long sessionValidity,
+																  @NonNull TimeUnit unit) {
+		long seconds = unit.toSeconds(sessionValidity);
+		if (seconds < 1 || seconds > Integer.MAX_VALUE) {
+			return Observable.error(new IllegalArgumentException("Invalid session validity: " + sessionValidity + " " + unit));
+		}
+
+		switch (method) {
+			case AES:
+			case AES_GCM:
+				return AesEncryptionObservable.create(method, context, keyName, Collections.singletonList(toEncrypt), keyInvalidatedByBiometricEnrollment, (int) seconds);
+			case AES_ENVELOPE:
+				return EnvelopeEncryptionObservable.create(context, keyName, Collections.singletonList(toEncrypt), keyInvalidatedByBiometricEnrollment, (int) seconds);
+			default:
+				return Observable.error(new IllegalArgumentException("Authentication sessions are not supported for encryption method: " + method));
+		}
+	}
+
+	/**
+	 * Encrypt several values at once with the given {@link EncryptionMethod}. Behaves like
+	 * {@link #encrypt(EncryptionMethod, Context, String, char[])}, but emits one
+	 * {@link FingerprintEncryptionResult} per given value, in the order of the given values.
+	 * <p>
+	 * When using {@link EncryptionMethod#AES} or {@link EncryptionMethod#AES_ENVELOPE} all values
+	 * are encrypted with a single fingerprint authentication. Every value can afterwards be decrypted on its own.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt values to encrypt
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted
+	 * values. Will complete once all values were encrypted or the operation failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encryptAll(@NonNull EncryptionMethod method,
+																	 @NonNull Context context,
+																	 @Nullable String keyName,
+																	 @NonNull Iterable<char[]> toEncrypt) {
+		return encryptAll(method, context, keyName, toEncrypt, true);
+	}
+
+	/**
+	 * Encrypt several values at once with the given {@link EncryptionMethod}. Behaves like
+	 * {@link #encrypt(EncryptionMethod, Context, String, char[], boolean)}, but emits one
+	 * {@link FingerprintEncryptionResult} per given value, in the order of the given values.
+	 * <p>
+	 * When using {@link EncryptionMethod#AES} or {@link EncryptionMethod#AES_ENVELOPE} all values
+	 * are encrypted with a single fingerprint authentication. Every value can afterwards be decrypted on its own.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt values to encrypt
+	 * @param keyInvalidatedByBiometricEnrollment whether or not the key will be invalidated when fingerprints are added
+	 *                                            or changed. Works only on Android N(API 24) and above.
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted
+	 * values. Will complete once all values were encrypted or the operation failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encryptAll(@NonNull EncryptionMethod method,
+																	 @NonNull Context context,
+																	 @Nullable String keyName,
+																	 @NonNull Iterable<char[]> toEncrypt,
+																	 boolean keyInvalidatedByBiometricEnrollment) {
+		switch (method) {
+			case AES:
+			case AES_GCM:
+				return AesEncryptionObservable.create(method, context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment, 0);
+			case AES_ENVELOPE:
+				return EnvelopeEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment, 0);
+			case EC:
+				return EcEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
+			case RSA_HYBRID:
+				return RsaHybridEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
 			case RSA:
 				return RsaEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
 			default:
@@ -377,6 +519,10 @@ public class RxFingerprint {
 	 * String and is accessible via {@link FingerprintDecryptionResult#getDecrypted()} if the
 	 * authentication and decryption was successful.
 	 * <p>
+	 * Values encrypted by this version of RxFingerprint carry their {@link EncryptionMethod}, which
+	 * takes precedence over the given one. The given method is only used for values encrypted by
+	 * previous versions.
+	 * <p>
 	 * This operation will require the user to authenticate with their fingerprint.
 	 *
 	 * @param method    the encryption method to use
@@ -393,16 +539,695 @@ public class RxFingerprint {
 																  @NonNull Context context,
 																  @Nullable String keyName,
 																  @NonNull String toDecrypt) {
+		CryptoData cryptoData;
+		try {
+			cryptoData = CryptoData.fromString(Encoding.getProvider(), toDecrypt, method);
+		} catch (CryptoDataException e) {
+			return Observable.error(e);
+		}
+		return decrypt(context, keyName, cryptoData, DecryptionFormat.CHARS);
+	}
+
+	/**
+	 * Encrypt binary data with the given {@link EncryptionMethod}. Behaves like
+	 * {@link #encrypt(EncryptionMethod, Context, String, char[])}, but skips the conversion of
+	 * characters. The encrypted data of the result is available as bytes via
+	 * {@link FingerprintEncryptionResult#getEncryptedBytes()}, which can be decrypted again with
+	 * {@link #decryptBytes(EncryptionMethod, Context, String, byte[])}. The given array is not
+	 * modified.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt data to encrypt
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted data.
+	 * Will complete once the operation was successful or failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encryptBytes(@NonNull EncryptionMethod method,
+																	   @NonNull Context context,
+																	   @Nullable String keyName,
+																	   @NonNull byte[] toEncrypt) {
+		return encryptBytes(method, context, keyName, toEncrypt, true);
+	}
+
+	/**
+	 * Encrypt binary data with the given {@link EncryptionMethod}. Behaves like
+	 * {@link #encryptBytes(EncryptionMethod, Context, String, byte[])}.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt data to encrypt
+	 * @param keyInvalidatedByBiometricEnrollment whether or not the key will be invalidated when fingerprints are added
+	 *                                            or changed. Works only on Android N(API 24) and above.
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted data.
+	 * Will complete once the operation was successful or failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encryptBytes(@NonNull EncryptionMethod method,
+																	   @NonNull Context context,
+																	   @Nullable String keyName,
+																	   @NonNull byte[] toEncrypt,
+																	   boolean keyInvalidatedByBiometricEnrollment) {
+		List<byte[]> values = Collections.singletonList(toEncrypt.clone());
 		switch (method) {
 			case AES:
-				return AesDecryptionObservable.create(context, keyName, toDecrypt);
+			case AES_GCM:
+				return AesEncryptionObservable.create(method, context, keyName, values, keyInvalidatedByBiometricEnrollment, 0);
+			case AES_ENVELOPE:
+				return EnvelopeEncryptionObservable.create(context, keyName, values, keyInvalidatedByBiometricEnrollment, 0);
+			case EC:
+				return EcEncryptionObservable.create(context, keyName, values, keyInvalidatedByBiometricEnrollment);
+			case RSA_HYBRID:
+				return RsaHybridEncryptionObservable.create(context, keyName, values, keyInvalidatedByBiometricEnrollment);
 			case RSA:
-				return RsaDecryptionObservable.create(context, keyName, toDecrypt);
+				return RsaEncryptionObservable.create(context, keyName, values, keyInvalidatedByBiometricEnrollment);
 			default:
-				return Observable.error(new IllegalArgumentException("Unknown decryption method: " + method));
+				return Observable.error(new IllegalArgumentException("Unknown encryption method: " + method));
 		}
 	}
 
+	/**
+	 * Encrypt the remaining bytes of the given buffer with the given {@link EncryptionMethod}.
+	 * Behaves like {@link #encryptBytes(EncryptionMethod, Context, String, byte[])}. The position
+	 * of the given buffer is not modified.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt data to encrypt
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted data.
+	 * Will complete once the operation was successful or failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encryptBytes(@NonNull EncryptionMethod method,
+																	   @NonNull Context context,
+																	   @Nullable String keyName,
+																	   @NonNull ByteBuffer toEncrypt) {
+		return encryptBytes(method, context, keyName, toArray(toEncrypt));
+	}
+
+	/**
+	 * Encrypt the content of the given {@link SecureBuffer} with the given {@link EncryptionMethod}.
+	 * Behaves like {@link #encryptBytes(EncryptionMethod, Context, String, byte[])}, but the
+	 * content is passed to the {@link javax.crypto.Cipher} without an intermediate array of this
+	 * library. The buffer is wiped once it was encrypted.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt data to encrypt
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted data.
+	 * Will complete once the operation was successful or failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encrypt(@NonNull EncryptionMethod method,
+																  @NonNull Context context,
+																  @Nullable String keyName,
+																  @NonNull SecureBuffer toEncrypt) {
+		return encrypt(method, context, keyName, toEncrypt, true);
+	}
+
+	/**
+	 * Encrypt the content of the given {@link SecureBuffer} with the given {@link EncryptionMethod}.
+	 * Behaves like {@link #encrypt(EncryptionMethod, Context, String, SecureBuffer)}.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param toEncrypt data to encrypt
+	 * @param keyInvalidatedByBiometricEnrollment whether or not the key will be invalidated when fingerprints are added
+	 *                                            or changed. Works only on Android N(API 24) and above.
+	 * @return Observable {@link FingerprintEncryptionResult} that will contain the encrypted data.
+	 * Will complete once the operation was successful or failed entirely.
+	 */
+	public static Observable<FingerprintEncryptionResult> encrypt(@NonNull EncryptionMethod method,
+																  @NonNull Context context,
+																  @Nullable String keyName,
+																  @NonNull SecureBuffer toEncrypt,
+																  boolean keyInvalidatedByBiometricEnrollment) {
+		switch (method) {
+			case AES:
+			case AES_GCM:
+				return AesEncryptionObservable.create(method, context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment, 0);
+			case AES_ENVELOPE:
+				return EnvelopeEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment, 0);
+			case EC:
+				return EcEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
+			case RSA_HYBRID:
+				return RsaHybridEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
+			case RSA:
+				return RsaEncryptionObservable.create(context, keyName, toEncrypt, keyInvalidatedByBiometricEnrollment);
+			default:
+				return Observable.error(new IllegalArgumentException("Unknown encryption method: " + method));
+		}
+	}
+
+	/**
+	 * Decrypt binary data previously encrypted with
+	 * {@link #encryptBytes(EncryptionMethod, Context, String, byte[])}. Behaves like
+	 * {@link #decryptBytes(Context, String, byte[])}, the {@link EncryptionMethod} stored in the
+	 * given data takes precedence over the given one.
+	 * <p/>
+	 * The decrypted data is available as bytes via
+	 * {@link FingerprintDecryptionResult#getDecryptedBytes()} if the authentication and
+	 * decryption was successful.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt bytes previously returned by
+	 *                  {@link FingerprintEncryptionResult#getEncryptedBytes()}
+	 * @return Observable {@link FingerprintDecryptionResult} that will contain the decrypted data.
+	 * Will complete once the authentication and decryption were successful or have failed
+	 * entirely.
+	 */
+	public static Observable<FingerprintDecryptionResult> decryptBytes(@NonNull EncryptionMethod method,
+																	   @NonNull Context context,
+																	   @Nullable String keyName,
+																	   @NonNull byte[] toDecrypt) {
+		return decryptBytes(context, keyName, toDecrypt);
+	}
+
+	/**
+	 * Decrypt binary data previously encrypted with
+	 * {@link #encryptBytes(EncryptionMethod, Context, String, byte[])}. The
+	 * {@link EncryptionMethod} is read from the given data. Make sure the keyName matches the one
+	 * used for encryption.
+	 * <p/>
+	 * The decrypted data is available as bytes via
+	 * {@link FingerprintDecryptionResult#getDecryptedBytes()} if the authentication and
+	 * decryption was successful.
+	 *
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt bytes previously returned by
+	 *                  {@link FingerprintEncryptionResult#getEncryptedBytes()}
+	 * @return Observable {@link FingerprintDecryptionResult} that will contain the decrypted data.
+	 * Will complete once the authentication and decryption were successful or have failed
+	 * entirely.
+	 */
+	public static Observable<FingerprintDecryptionResult> decryptBytes(@NonNull Context context,
+																	   @Nullable String keyName,
+																	   @NonNull byte[] toDecrypt) {
+		CryptoData cryptoData;
+		try {
+			cryptoData = CryptoData.fromBinary(Encoding.getProvider(), toDecrypt);
+		} catch (CryptoDataException e) {
+			return Observable.error(e);
+		}
+		return decrypt(context, keyName, cryptoData, DecryptionFormat.BYTES);
+	}
+
+	/**
+	 * Prepare the decryption of the given value ahead of time, e.g. when the screen asking for
+	 * authentication is shown. The key is loaded and the cipher is initialized on the
+	 * {@link #setPreparationScheduler(Scheduler) preparation scheduler}, so
+	 * {@link PreparedOperation#authenticate()} can start the fingerprint sensor right away once
+	 * the user wants to decrypt the value.
+	 * <p/>
+	 * The initialized cipher is released after 30 seconds if
+	 * it was not used.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt data to decrypt
+	 * @return Single emitting the prepared decryption
+	 */
+	public static Single<PreparedOperation<FingerprintDecryptionResult>> prepare(@NonNull EncryptionMethod method,
+																				 @NonNull Context context,
+																				 @Nullable String keyName,
+																				 @NonNull String toDecrypt) {
+		return prepare(method, context, keyName, toDecrypt, DEFAULT_PREPARED_TTL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Prepare the decryption of the given value ahead of time. Behaves like
+	 * {@link #prepare(EncryptionMethod, Context, String, String)} with a custom time to live.
+	 *
+	 * @param method     the encryption method to use
+	 * @param context    context to use
+	 * @param keyName    name of the key in the keystore to use
+	 * @param toDecrypt  data to decrypt
+	 * @param timeToLive time after which the initialized cipher is released if it was not used
+	 * @param unit       unit of the time to live
+	 * @return Single emitting the prepared decryption
+	 */
+	public static Single<PreparedOperation<FingerprintDecryptionResult>> prepare(@NonNull final EncryptionMethod method,
+																				 @NonNull final Context context,
+																				 @Nullable final String keyName,
+																				 @NonNull final String toDecrypt,
+																				 final long timeToLive,
+																				 @NonNull final TimeUnit unit) {
+		return Single.fromCallable(new Callable<PreparedOperation<FingerprintDecryptionResult>>() {
+			@Override
+			public PreparedOperation<FingerprintDecryptionResult> call() throws Exception {
+				CryptoData cryptoData = CryptoData.fromString(Encoding.getProvider(), toDecrypt, method);
+				return PreparedOperation.create(newDecryptionObservable(context, keyName, cryptoData, DecryptionFormat.CHARS), timeToLive, unit);
+			}
+		}).subscribeOn(PreparationScheduler.get());
+	}
+
+	private static FingerprintObservable<FingerprintDecryptionResult> newDecryptionObservable(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) throws Exception {
+		switch (cryptoData.getMethod()) {
+			case AES:
+			case AES_GCM:
+				return AesDecryptionObservable.newInstance(context, keyName, cryptoData, format);
+			case AES_ENVELOPE:
+				return EnvelopeDecryptionObservable.newInstance(context, keyName, cryptoData, format);
+			case EC:
+				return EcDecryptionObservable.newInstance(context, keyName, cryptoData, format);
+			case RSA_HYBRID:
+				return RsaHybridDecryptionObservable.newInstance(context, keyName, cryptoData, format);
+			case RSA:
+				return RsaDecryptionObservable.newInstance(context, keyName, cryptoData, format);
+			default:
+				throw new IllegalArgumentException("Unknown decryption method: " + cryptoData.getMethod());
+		}
+	}
+
+	private static Observable<FingerprintDecryptionResult> decrypt(Context context, String keyName, CryptoData cryptoData, DecryptionFormat format) {
+		switch (cryptoData.getMethod()) {
+			case AES:
+			case AES_GCM:
+				return AesDecryptionObservable.create(context, keyName, cryptoData, format);
+			case AES_ENVELOPE:
+				return EnvelopeDecryptionObservable.create(context, keyName, cryptoData, format);
+			case EC:
+				return EcDecryptionObservable.create(context, keyName, cryptoData, format);
+			case RSA_HYBRID:
+				return RsaHybridDecryptionObservable.create(context, keyName, cryptoData, format);
+			case RSA:
+				return RsaDecryptionObservable.create(context, keyName, cryptoData, format);
+			default:
+				return Observable.error(new IllegalArgumentException("Unknown decryption method: " + cryptoData.getMethod()));
+		}
+	}
+
+	/**
+	 * Decrypt the remaining bytes of the given buffer. Behaves like
+	 * {@link #decryptBytes(EncryptionMethod, Context, String, byte[])}. The position of the given
+	 * buffer is not modified.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt bytes previously returned by
+	 *                  {@link FingerprintEncryptionResult#getEncryptedBytes()}
+	 * @return Observable {@link FingerprintDecryptionResult} that will contain the decrypted data.
+	 * Will complete once the authentication and decryption were successful or have failed
+	 * entirely.
+	 */
+	public static Observable<FingerprintDecryptionResult> decryptBytes(@NonNull EncryptionMethod method,
+																	   @NonNull Context context,
+																	   @Nullable String keyName,
+																	   @NonNull ByteBuffer toDecrypt) {
+		return decryptBytes(method, context, keyName, toArray(toDecrypt));
+	}
+
+	/**
+	 * Prepares the keys for the given keyNames in the background. Loads the Android
+	 * {@link java.security.KeyStore} and the security providers and generates all keys that do not
+	 * exist yet. Subsequent calls to {@link #encrypt(EncryptionMethod, Context, String, String)}
+	 * and {@link #decrypt(EncryptionMethod, Context, String, String)} with these keyNames will
+	 * then only need to initialize their cipher before the fingerprint sensor is enabled.
+	 * <p>
+	 * Keys are prepared on the {@link #setPreparationScheduler(Scheduler) preparation scheduler}
+	 * with a bounded number of keys in parallel. If no keyName is given, the default key of the
+	 * application is prepared.
+	 * <p>
+	 * The keys are created to be invalidated when fingerprints are added or changed. Use
+	 * {@link #prewarm(EncryptionMethod, Context, boolean, String...)} for keys that are used with
+	 * {@code keyInvalidatedByBiometricEnrollment} set to {@code false}.
+	 *
+	 * @param method   the encryption method the keys are used with
+	 * @param context  context to use
+	 * @param keyNames names of the keys in the Android {@link java.security.KeyStore}
+	 * @return Completable that completes once all keys are prepared
+	 */
+	public static Completable prewarm(@NonNull EncryptionMethod method,
+									  @NonNull Context context,
+									  @NonNull String... keyNames) {
+		return prewarm(method, context, true, keyNames);
+	}
+
+	/**
+	 * Prepares the keys for the given keyNames in the background. Behaves like
+	 * {@link #prewarm(EncryptionMethod, Context, String...)}. The policy is fixed once a key is
+	 * created, so it has to match the one used for encryption with these keyNames.
+	 *
+	 * @param method   the encryption method the keys are used with
+	 * @param context  context to use
+	 * @param keyInvalidatedByBiometricEnrollment whether or not the keys will be invalidated when fingerprints are added
+	 *                                            or changed. Works only on Android N(API 24) and above.
+	 * @param keyNames names of the keys in the Android {@link java.security.KeyStore}
+	 * @return Completable that completes once all keys are prepared
+	 */
+	public static Completable prewarm(@NonNull final EncryptionMethod method,
+									  @NonNull final Context context,
+									  final boolean keyInvalidatedByBiometricEnrollment,
+									  @NonNull String... keyNames) {
+		final String[] names = keyNames.length == 0 ? new String[]{null} : keyNames;
+		return Flowable.range(0, names.length)
+				.flatMapCompletable(new Function<Integer, CompletableSource>() {
+					@Override
+					public CompletableSource apply(final Integer index) throws Exception {
+						return Completable.fromAction(new Action() {
+							@Override
+							public void run() throws Exception {
+								createKeyProvider(method, context, names[index], keyInvalidatedByBiometricEnrollment).prewarm();
+							}
+						}).subscribeOn(PreparationScheduler.get());
+					}
+				}, false, MAX_PREWARM_CONCURRENCY);
+	}
+
+	/**
+	 * Replaces the key stored under the given keyName with a newly generated one. Values that were
+	 * encrypted with the previous key can not be decrypted anymore.
+	 * <p>
+	 * Encryption reuses an existing key for the given keyName. Call this method only if you
+	 * explicitly want to start over with a new key.
+	 *
+	 * @param method  the encryption method the key is used with
+	 * @param context context to use
+	 * @param keyName name of the key in the Android {@link java.security.KeyStore}
+	 * @return Completable that completes once the new key was generated
+	 */
+	public static Completable rotateKey(@NonNull EncryptionMethod method,
+										@NonNull Context context,
+										@Nullable String keyName) {
+		return rotateKey(method, context, keyName, true);
+	}
+
+	/**
+	 * Replaces the key stored under the given keyName with a newly generated one. Values that were
+	 * encrypted with the previous key can not be decrypted anymore.
+	 * <p>
+	 * Encryption reuses an existing key for the given keyName. Call this method only if you
+	 * explicitly want to start over with a new key.
+	 *
+	 * @param method                              the encryption method the key is used with
+	 * @param context                             context to use
+	 * @param keyName                             name of the key in the Android {@link java.security.KeyStore}
+	 * @param keyInvalidatedByBiometricEnrollment whether or not the key will be invalidated when fingerprints are added
+	 *                                            or changed. Works only on Android N(API 24) and above.
+	 * @return Completable that completes once the new key was generated
+	 */
+	public static Completable rotateKey(@NonNull final EncryptionMethod method,
+										@NonNull final Context context,
+										@Nullable final String keyName,
+										final boolean keyInvalidatedByBiometricEnrollment) {
+		return Completable.fromAction(new Action() {
+			@Override
+			public void run() throws Exception {
+				createKeyProvider(method, context, keyName, keyInvalidatedByBiometricEnrollment).rotateKey();
+			}
+		});
+	}
+
+	/**
+	 * Provides the public key that {@link EncryptionMethod#RSA} uses to encrypt values for the
+	 * given keyName. A new key pair will be generated if none exists for the given keyName yet.
+	 * <p>
+	 * The key is returned in its X.509 encoded form and can be restored with a
+	 * {@link java.security.spec.X509EncodedKeySpec}. Values encrypted with RSA/ECB/PKCS1Padding and
+	 * this key, e.g. on a backend or with the software providers of the platform, can be decrypted
+	 * with {@link #decrypt(EncryptionMethod, Context, String, String)} after Base64 encoding them.
+	 *
+	 * @param context context to use
+	 * @param keyName name of the key in the Android {@link java.security.KeyStore}
+	 * @return Single emitting the X.509 encoded public key
+	 */
+	public static Single<byte[]> getPublicKey(@NonNull final Context context, @Nullable final String keyName) {
+		return Single.fromCallable(new Callable<byte[]>() {
+			@Override
+			@SuppressLint("NewApi") // SDK check happens in {@link #verifyAvailable(Context)}
+			public byte[] call() throws Exception {
+				verifyAvailable(context);
+				return new RsaCipherProvider(context, keyName).getPublicKey().getEncoded();
+			}
+		});
+	}
+
+	private static byte[] toArray(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private static void verifyAvailable(Context context) throws FingerprintUnavailableException {
+		if (new FingerprintApiWrapper(context).isUnavailable()) {
+			throw new FingerprintUnavailableException("Fingerprint authentication is not available on this device! Ensure that the device has a Fingerprint sensor and enrolled Fingerprints by calling RxFingerprint#isAvailable(Context) first");
+		}
+	}
+
+	@SuppressLint("NewApi") // SDK check happens in {@link #verifyAvailable(Context)}
+	private static KeyProvider createKeyProvider(EncryptionMethod method,
+												 Context context,
+												 String keyName,
+												 boolean keyInvalidatedByBiometricEnrollment) throws Exception {
+		verifyAvailable(context);
+
+		switch (method) {
+			case AES:
+			case AES_ENVELOPE:
+				return new AesCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment);
+			case AES_GCM:
+				return new AesGcmCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment, 0);
+			case EC:
+				return new EcKeyProvider(context, keyName, keyInvalidatedByBiometricEnrollment);
+			case RSA_HYBRID:
+				return new RsaOaepCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment);
+			case RSA:
+				return new RsaCipherProvider(context, keyName, keyInvalidatedByBiometricEnrollment);
+			default:
+				throw new IllegalArgumentException("Unknown encryption method: " + method);
+		}
+	}
+
+	/**
+	 * Decrypt several values previously encrypted with
+	 * {@link #encrypt(EncryptionMethod, Context, String, String)} or
+	 * {@link #encryptAll(EncryptionMethod, Context, String, Iterable)} with a single fingerprint
+	 * authentication. All values need to be encrypted with the same keyName.
+	 * <p>
+	 * The resulting Flowable emits {@link FingerprintDecryptionResult}s for recoverable errors of
+	 * the fingerprint authentication first. Once the user authenticated successfully it emits one
+	 * {@link FingerprintDecryptionResult} per given value, in the order of the given values.
+	 * <p>
+	 * Only {@link EncryptionMethod#AES} and {@link EncryptionMethod#AES_ENVELOPE} support
+	 * decrypting several values at once. Other methods require a separate fingerprint
+	 * authentication for every value.
+	 * <p>
+	 * All values are decrypted together once the user authenticated. The results are buffered
+	 * until they are requested, so requesting fewer results does not hold back the decryption.
+	 *
+	 * @param method    the encryption method to use
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt Strings of encrypted data previously encrypted with RxFingerprint.
+	 * @return Flowable {@link FingerprintDecryptionResult} that will contain the decrypted values.
+	 * Will complete once all values were decrypted or the operation failed entirely.
+	 */
+	public static Flowable<FingerprintDecryptionResult> decryptAll(@NonNull EncryptionMethod method,
+																   @NonNull Context context,
+																   @Nullable String keyName,
+																   @NonNull Iterable<String> toDecrypt) {
+		switch (method) {
+			case AES:
+				return AesBatchDecryptionObservable.create(context, keyName, toDecrypt);
+			case AES_ENVELOPE:
+				return EnvelopeDecryptionObservable.create(context, keyName, toDecrypt);
+			default:
+				return Flowable.error(new IllegalArgumentException("Decrypting several values at once is not supported for decryption method: " + method));
+		}
+	}
+
+	/**
+	 * Decrypt several values that were already parsed into {@link EncryptedPayload}s with a single
+	 * fingerprint authentication. Behaves like
+	 * {@link #decryptAll(EncryptionMethod, Context, String, Iterable)}, the
+	 * {@link EncryptionMethod} is read from the payloads. All payloads need to be encrypted with
+	 * the same method and keyName.
+	 *
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt payloads previously parsed with {@link #parse(Iterable)}
+	 * @return Flowable {@link FingerprintDecryptionResult} that will contain the decrypted values.
+	 * Will complete once all values were decrypted or the operation failed entirely.
+	 */
+	public static Flowable<FingerprintDecryptionResult> decryptAll(@NonNull Context context,
+																   @Nullable String keyName,
+																   @NonNull Iterable<EncryptedPayload> toDecrypt) {
+		List<CryptoData> values = new ArrayList<>();
+		for (EncryptedPayload payload : toDecrypt) {
+			values.add(payload.getCryptoData());
+		}
+		if (values.isEmpty()) {
+			return Flowable.empty();
+		}
+
+		EncryptionMethod method = values.get(0).getMethod();
+		switch (method) {
+			case AES:
+				return AesBatchDecryptionObservable.create(context, keyName, Flowable.fromIterable(values));
+			case AES_ENVELOPE:
+				return EnvelopeDecryptionObservable.create(context, keyName, Flowable.fromIterable(values));
+			default:
+				return Flowable.error(new IllegalArgumentException("Decrypting several values at once is not supported for decryption method: " + method));
+		}
+	}
+
+	/**
+	 * Decrypt a value that was already parsed into an {@link EncryptedPayload}. Behaves like
+	 * {@link #decrypt(Context, String, String)} without parsing the value again.
+	 *
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt payload previously parsed with {@link EncryptedPayload#fromString(String)}
+	 *                  or {@link #parse(Iterable)}
+	 * @return Observable {@link FingerprintDecryptionResult} that will contain the decrypted data.
+	 * Will complete once the authentication and decryption were successful or have failed
+	 * entirely.
+	 */
+	public static Observable<FingerprintDecryptionResult> decrypt(@NonNull Context context,
+																  @Nullable String keyName,
+																  @NonNull EncryptedPayload toDecrypt) {
+		return decrypt(context, keyName, toDecrypt.getCryptoData(), DecryptionFormat.CHARS);
+	}
+
+	/**
+	 * Decrypt a value that was already parsed into an {@link EncryptedPayload}. Behaves like
+	 * {@link #decryptBytes(Context, String, byte[])} without parsing the value again.
+	 *
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt payload previously parsed with {@link EncryptedPayload#fromBytes(byte[])}
+	 * @return Observable {@link FingerprintDecryptionResult} that will contain the decrypted data.
+	 * Will complete once the authentication and decryption were successful or have failed
+	 * entirely.
+	 */
+	public static Observable<FingerprintDecryptionResult> decryptBytes(@NonNull Context context,
+																	   @Nullable String keyName,
+																	   @NonNull EncryptedPayload toDecrypt) {
+		return decrypt(context, keyName, toDecrypt.getCryptoData(), DecryptionFormat.BYTES);
+	}
+
+	/**
+	 * Decrypt a value that was already parsed into an {@link EncryptedPayload} straight into a
+	 * {@link SecureBuffer}. The library keeps no copy of the decrypted data besides that buffer,
+	 * though the platform {@link javax.crypto.Cipher} may still use temporary arrays. It is
+	 * available via {@link FingerprintDecryptionResult#getDecryptedBuffer()} if the authentication
+	 * and decryption was successful. Close the buffer as soon as the data is not needed anymore.
+	 *
+	 * @param context   context to use.
+	 * @param keyName   name of the key in the keystore to use
+	 * @param toDecrypt payload previously parsed with {@link EncryptedPayload#fromString(String)},
+	 *                  {@link EncryptedPayload#fromBytes(byte[])} or {@link #parse(Iterable)}
+	 * @return Observable {@link FingerprintDecryptionResult} that will contain the decrypted data.
+	 * Will complete once the authentication and decryption were successful or have failed
+	 * entirely.
+	 */
+	public static Observable<FingerprintDecryptionResult> decryptSecure(@NonNull Context context,
+																		@Nullable String keyName,
+																		@NonNull EncryptedPayload toDecrypt) {
+		return decrypt(context, keyName, toDecrypt.getCryptoData(), DecryptionFormat.SECURE_BUFFER);
+	}
+
+	/**
+	 * Parses values previously encrypted by RxFingerprint into {@link EncryptedPayload}s. The
+	 * values are parsed in parallel on the {@link Schedulers#computation()} scheduler, e.g. right
+	 * after loading them from disk, so a later decryption does not need to parse them anymore.
+	 * Values encrypted by previous versions of RxFingerprint are assumed to be encrypted with
+	 * {@link EncryptionMethod#AES}.
+	 *
+	 * @param encrypted Strings of encrypted data previously encrypted with RxFingerprint
+	 * @return Flowable of parsed payloads in the order of the given values. Fails if any value
+	 * was not encrypted by RxFingerprint.
+	 */
+	public static Flowable<EncryptedPayload> parse(@NonNull Iterable<String> encrypted) {
+		return CryptoData.fromStrings(Encoding.getProvider(), encrypted, EncryptionMethod.AES)
+				.map(new Function<CryptoData, EncryptedPayload>() {
+					@Override
+					public EncryptedPayload apply(CryptoData cryptoData) throws Exception {
+						return new EncryptedPayload(cryptoData);
+					}
+				});
+	}
+
+	/**
+	 * Encrypt a stream of data with {@link EncryptionMethod#AES} chunk by chunk. The memory needed
+	 * only depends on the size of the chunks and not on the size of the whole stream. The given
+	 * input is subscribed to once the user authenticated with their fingerprint.
+	 * <p>
+	 * The resulting stream starts with the initialization vector of the encryption, followed by
+	 * the encrypted data. Keep all chunks in order and pass them to
+	 * {@link #decryptStream(Context, String, Flowable)} to decrypt the data again.
+	 * <p>
+	 * Help messages and failed attempts of the fingerprint authentication are not emitted. The
+	 * fingerprint sensor stays active until the user authenticated or an error occurred.
+	 *
+	 * @param context context to use
+	 * @param keyName name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param input   chunks of data to encrypt
+	 * @return Flowable of encrypted chunks. Will complete once the whole input was encrypted.
+	 */
+	public static Flowable<ByteBuffer> encryptStream(@NonNull Context context,
+													 @Nullable String keyName,
+													 @NonNull Flowable<ByteBuffer> input) {
+		return AesStreamCipher.encrypt(context, keyName, input);
+	}
+
+	/**
+	 * Encrypt the content of the given {@link InputStream} with {@link EncryptionMethod#AES}. The
+	 * stream is read in chunks once the user authenticated and closed afterwards. Behaves like
+	 * {@link #encryptStream(Context, String, Flowable)} otherwise.
+	 *
+	 * @param context context to use
+	 * @param keyName name of the key to store in the Android {@link java.security.KeyStore}
+	 * @param input   stream of data to encrypt
+	 * @return Flowable of encrypted chunks. Will complete once the whole input was encrypted.
+	 */
+	public static Flowable<ByteBuffer> encryptStream(@NonNull Context context,
+													 @Nullable String keyName,
+													 @NonNull InputStream input) {
+		return encryptStream(context, keyName, AesStreamCipher.fromInputStream(input));
+	}
+
+	/**
+	 * Decrypt a stream of data previously encrypted with
+	 * {@link #encryptStream(Context, String, Flowable)} chunk by chunk. The fingerprint sensor is
+	 * enabled once the initialization vector was read from the start of the input.
+	 * <p>
+	 * Help messages and failed attempts of the fingerprint authentication are not emitted. The
+	 * fingerprint sensor stays active until the user authenticated or an error occurred.
+	 *
+	 * @param context context to use
+	 * @param keyName name of the key in the keystore to use
+	 * @param input   chunks of the encrypted data
+	 * @return Flowable of decrypted chunks. Will complete once the whole input was decrypted.
+	 */
+	public static Flowable<ByteBuffer> decryptStream(@NonNull Context context,
+													 @Nullable String keyName,
+													 @NonNull Flowable<ByteBuffer> input) {
+		return AesStreamCipher.decrypt(context, keyName, input);
+	}
+
+	/**
+	 * Decrypt the content of the given {@link InputStream} previously encrypted with
+	 * {@link #encryptStream(Context, String, Flowable)}. The stream is read in chunks and closed
+	 * afterwards. Behaves like {@link #decryptStream(Context, String, Flowable)} otherwise.
+	 *
+	 * @param context context to use
+	 * @param keyName name of the key in the keystore to use
+	 * @param input   stream of the encrypted data
+	 * @return Flowable of decrypted chunks. Will complete once the whole input was decrypted.
+	 */
+	public static Flowable<ByteBuffer> decryptStream(@NonNull Context context,
+													 @Nullable String keyName,
+													 @NonNull InputStream input) {
+		return decryptStream(context, keyName, AesStreamCipher.fromInputStream(input));
+	}
+
     /**
      * Provides information if fingerprint authentication is currently available.
      * <p/>
@@ -465,6 +1290,57 @@ public class RxFingerprint {
         Logger.setLogger(logger);
     }
 
+	/**
+	 * Set a custom {@link EncodingProvider} for the String representation of encrypted values,
+	 * e.g. to match the serialization of your storage layer. RxFingerprint uses
+	 * {@link Base64Provider} by default.
+	 * <p/>
+	 * Values can only be decrypted from a String that was encoded by the same provider. Binary
+	 * values of {@link #encryptBytes(EncryptionMethod, Context, String, byte[])} are not affected.
+	 *
+	 * @param encodingProvider provider to use for all subsequent operations
+	 */
+	public static void setEncodingProvider(@NonNull EncodingProvider encodingProvider) {
+		Encoding.setProvider(encodingProvider);
+	}
+
+	/**
+	 * Set the {@link Scheduler} on which keys and ciphers are prepared before the fingerprint
+	 * sensor is started. Loading or creating a key can take considerable time and should not
+	 * happen on the main thread. RxFingerprint uses {@link Schedulers#io()} by default.
+	 * <p/>
+	 * Results are still delivered on the subscribing thread if it has a
+	 * {@link android.os.Looper}, e.g. the main thread.
+	 *
+	 * @param scheduler scheduler to use for all subsequent operations
+	 */
+	public static void setPreparationScheduler(@NonNull Scheduler scheduler) {
+		PreparationScheduler.set(scheduler);
+	}
+
+	/**
+	 * Receive the callbacks of the fingerprint sensor on the given {@link Handler}. The crypto
+	 * operation after a successful authentication, e.g. decrypting and encoding large values, runs
+	 * on its thread as well instead of the main thread.
+	 * <p/>
+	 * Results are still delivered on the subscribing thread if it has a
+	 * {@link android.os.Looper}.
+	 *
+	 * @param handler handler to receive callbacks on or {@code null} to receive them on the
+	 *                subscribing thread again
+	 */
+	public static void setCallbackHandler(@Nullable Handler handler) {
+		CallbackHandler.set(handler);
+	}
+
+	/**
+	 * Receive the callbacks of the fingerprint sensor on a background thread owned by
+	 * RxFingerprint. See {@link #setCallbackHandler(Handler)}.
+	 */
+	public static void useCallbackThread() {
+		CallbackHandler.set(CallbackHandler.dedicated());
+	}
+
     /**
      * Disables all logging in RxFingerprint. This also affects any custom logger set by
      * {@link #setLogger(RxFingerprintLogger)}.
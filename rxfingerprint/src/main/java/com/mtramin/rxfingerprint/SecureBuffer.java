@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Marvin Ramin.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * <http://www.apache.org/licenses/LICENSE-2.0>
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mtramin.rxfingerprint;
+
+import android.support.annotation.NonNull;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Sensitive data held in a direct {@link ByteBuffer} that can be wiped.
+ * <p/>
+ * The garbage collector never moves or copies the content of this buffer. It stays in memory
+ * until it is explicitly cleared with {@link #wipe()} or {@link #close()}. This only covers the
+ * buffers of this library: the platform {@link javax.crypto.Cipher} implementations may still use
+ * temporary arrays on the Java heap, and {@link #toBytes()} and {@link #toChars()} return copies.
+ * <p/>
+ * Encrypt a buffer with {@link RxFingerprint#encrypt(EncryptionMethod, android.content.Context, String, SecureBuffer)}
+ * and decrypt into a buffer with
+ * {@link RxFingerprint#decryptSecure(android.content.Context, String, EncryptedPayload)}.
+ */
+public final class SecureBuffer implements Closeable {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final byte[] ZEROS = new byte[256];
+
+	private final ByteBuffer buffer;
+	private boolean closed;
+
+	/**
+	 * @param buffer direct buffer holding the content between position and limit
+	 */
+	SecureBuffer(ByteBuffer buffer) {
+		this.buffer = buffer.slice();
+	}
+
+	/**
+	 * Copies the given bytes into a new buffer. Clear the given array afterwards if it holds
+	 * sensitive data.
+	 *
+	 * @param bytes content of the buffer
+	 * @return new buffer with the given content
+	 */
+	@NonNull
+	public static SecureBuffer copyOf(@NonNull byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+		return new SecureBuffer(buffer);
+	}
+
+	/**
+	 * Encodes the given characters as UTF-8 straight into a new buffer. Clear the given array
+	 * afterwards if it holds sensitive data.
+	 *
+	 * @param chars content of the buffer
+	 * @return new buffer with the UTF-8 encoded content
+	 */
+	@NonNull
+	public static SecureBuffer fromChars(@NonNull char[] chars) {
+		CharsetEncoder encoder = UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.ceil(chars.length * (double) encoder.maxBytesPerChar()));
+		encoder.encode(CharBuffer.wrap(chars), buffer, true);
+		encoder.flush(buffer);
+		buffer.flip();
+		return new SecureBuffer(buffer);
+	}
+
+	/**
+	 * @return number of bytes in this buffer
+	 */
+	public int length() {
+		verifyOpen();
+		return buffer.limit();
+	}
+
+	/**
+	 * @return read-only view of the content. Becomes empty once the buffer was wiped.
+	 */
+	@NonNull
+	public ByteBuffer asReadOnlyBuffer() {
+		return content().asReadOnlyBuffer();
+	}
+
+	/**
+	 * @return copy of the content on the Java heap. Clear it once it is not needed anymore.
+	 */
+	@NonNull
+	public byte[] toBytes() {
+		ByteBuffer content = content();
+		byte[] bytes = new byte[content.remaining()];
+		content.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * @return copy of the UTF-8 decoded content on the Java heap. Clear it once it is not needed
+	 * anymore.
+	 */
+	@NonNull
+	public char[] toChars() {
+		CharBuffer charBuffer = UTF_8.decode(content());
+		char[] chars = new char[charBuffer.remaining()];
+		charBuffer.get(chars);
+		charBuffer.clear();
+		charBuffer.put(new char[charBuffer.capacity()]);
+		return chars;
+	}
+
+	/**
+	 * Overwrites the content of this buffer with zeros. The buffer is empty afterwards.
+	 */
+	public void wipe() {
+		verifyOpen();
+		wipe(buffer);
+		buffer.limit(0);
+	}
+
+	/**
+	 * Wipes this buffer. It can not be used anymore afterwards.
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			wipe();
+			closed = true;
+		}
+	}
+
+	/**
+	 * @return {@code true} if this buffer was closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return view of the content that shares the memory of this buffer
+	 */
+	ByteBuffer content() {
+		verifyOpen();
+		return buffer.duplicate();
+	}
+
+	/**
+	 * Overwrites the bytes between position and limit of the given buffer with zeros. The
+	 * position of the buffer is not modified.
+	 */
+	static void wipe(ByteBuffer buffer) {
+		if (buffer.hasArray()) {
+			int offset = buffer.arrayOffset() + buffer.position();
+			java.util.Arrays.fill(buffer.array(), offset, offset + buffer.remaining(), (byte) 0);
+			return;
+		}
+		ByteBuffer zeros = buffer.duplicate();
+		while (zeros.hasRemaining()) {
+			zeros.put(ZEROS, 0, Math.min(ZEROS.length, zeros.remaining()));
+		}
+	}
+
+	private void verifyOpen() {
+		if (closed) {
+			throw new IllegalStateException("SecureBuffer was already closed");
+		}
+	}
+}
@@ -16,13 +16,23 @@
 
 package com.mtramin.rxfingerprint.data;
 
+import com.mtramin.rxfingerprint.SecureBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * Result of a decryption operation with fingerprint authentication.
  */
 public class FingerprintDecryptionResult extends FingerprintAuthenticationResult {
 
-    private final char[] decrypted;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private char[] decrypted;
+    private byte[] decryptedBytes;
+    private SecureBuffer decryptedBuffer;
 
     /**
      * Default constructor
@@ -36,6 +46,26 @@ public class FingerprintDecryptionResult extends FingerprintAuthenticationResult
         this.decrypted = decrypted;
     }
 
+    /**
+     * Constructor for successful results holding the decrypted data as bytes.
+     *
+     * @param decryptedBytes decrypted data
+     */
+    public FingerprintDecryptionResult(byte[] decryptedBytes) {
+        super(FingerprintResult.AUTHENTICATED, null);
+        this.decryptedBytes = decryptedBytes;
+    }
+
+    /**
+     * Constructor for successful results holding the decrypted data in a {@link SecureBuffer}.
+     *
+     * @param decryptedBuffer decrypted data
+     */
+    public FingerprintDecryptionResult(SecureBuffer decryptedBuffer) {
+        super(FingerprintResult.AUTHENTICATED, null);
+        this.decryptedBuffer = decryptedBuffer;
+    }
+
     /**
      * @return decrypted data as a String. Can only be accessed if the result of the fingerprint
      * authentication was of type {@link FingerprintResult#AUTHENTICATED}.
@@ -46,12 +76,57 @@ public class FingerprintDecryptionResult extends FingerprintAuthenticationResult
 
     /**
      * @return decrypted data as a char[]. Can only be accessed if the result of the fingerprint
-     * authentication was of type {@link FingerprintResult#AUTHENTICATED}.
+     * authentication was of type {@link FingerprintResult#AUTHENTICATED}. Data held in a
+     * {@link SecureBuffer} is returned as a fresh copy on every call that is not kept by this
+     * result, clear it once it is not needed anymore.
      */
     public char[] getDecryptedChars() {
+        verifySuccess();
+        if (decryptedBuffer != null) {
+            return decryptedBuffer.toChars();
+        }
+        if (decrypted == null && decryptedBytes != null) {
+            CharBuffer charBuffer = UTF_8.decode(ByteBuffer.wrap(decryptedBytes));
+            decrypted = Arrays.copyOf(charBuffer.array(), charBuffer.limit());
+            Arrays.fill(charBuffer.array(), '\u0000');
+        }
+        return decrypted;
+    }
+
+    /**
+     * @return decrypted data as bytes. Data decrypted from a String is returned UTF-8 encoded. Can
+     * only be accessed if the result of the fingerprint authentication was of type
+     * {@link FingerprintResult#AUTHENTICATED}. Data held in a {@link SecureBuffer} is returned
+     * as a fresh copy on every call that is not kept by this result, clear it once it is not
+     * needed anymore.
+     */
+    public byte[] getDecryptedBytes() {
+        verifySuccess();
+        if (decryptedBuffer != null) {
+            return decryptedBuffer.toBytes();
+        }
+        if (decryptedBytes == null && decrypted != null) {
+            ByteBuffer byteBuffer = UTF_8.encode(CharBuffer.wrap(decrypted));
+            decryptedBytes = Arrays.copyOfRange(byteBuffer.array(), byteBuffer.position(), byteBuffer.limit());
+            Arrays.fill(byteBuffer.array(), (byte) 0);
+        }
+        return decryptedBytes;
+    }
+
+    /**
+     * @return decrypted data in a {@link SecureBuffer}, if it was decrypted with
+     * {@link com.mtramin.rxfingerprint.RxFingerprint#decryptSecure}. Otherwise {@code null}. Can
+     * only be accessed if the result of the fingerprint authentication was of type
+     * {@link FingerprintResult#AUTHENTICATED}.
+     */
+    public SecureBuffer getDecryptedBuffer() {
+        verifySuccess();
+        return decryptedBuffer;
+    }
+
+    private void verifySuccess() {
         if (!isSuccess()) {
             throw new IllegalAccessError("Fingerprint authentication was not successful, cannot access decryption result");
         }
-        return decrypted;
     }
-}
\ No newline at end of file
+}
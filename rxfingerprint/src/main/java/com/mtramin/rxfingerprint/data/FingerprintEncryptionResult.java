@@ -16,13 +16,16 @@
 
 package com.mtramin.rxfingerprint.data;
 
+import com.mtramin.rxfingerprint.EncodingProvider;
 
 /**
  * Result of a fingerprint authenticated encryption operation
  */
 public class FingerprintEncryptionResult extends FingerprintAuthenticationResult {
 
-    private final String encrypted;
+    private final byte[] encryptedBytes;
+    private final EncodingProvider encodingProvider;
+    private String encrypted;
 
     /**
      * Default constructor
@@ -34,6 +37,21 @@ public class FingerprintEncryptionResult extends FingerprintAuthenticationResult
     public FingerprintEncryptionResult(FingerprintResult result, String message, String encrypted) {
         super(result, message);
         this.encrypted = encrypted;
+        this.encryptedBytes = null;
+        this.encodingProvider = null;
+    }
+
+    /**
+     * Constructor for successful results holding the encrypted data as bytes. The String
+     * representation is created with the given {@link EncodingProvider} once it is first accessed.
+     *
+     * @param encryptedBytes   encrypted data
+     * @param encodingProvider provider to encode the encrypted data with
+     */
+    protected FingerprintEncryptionResult(byte[] encryptedBytes, EncodingProvider encodingProvider) {
+        super(FingerprintResult.AUTHENTICATED, null);
+        this.encryptedBytes = encryptedBytes;
+        this.encodingProvider = encodingProvider;
     }
 
     /**
@@ -41,9 +59,26 @@ public class FingerprintEncryptionResult extends FingerprintAuthenticationResult
      * type {@link FingerprintResult#AUTHENTICATED}
      */
     public String getEncrypted() {
+        verifySuccess();
+        if (encrypted == null && encryptedBytes != null) {
+            encrypted = encodingProvider.encode(encryptedBytes);
+        }
+        return encrypted;
+    }
+
+    /**
+     * @return encrypted data as bytes, can only be accessed if the result was of
+     * type {@link FingerprintResult#AUTHENTICATED}. Is {@code null} if the result was created
+     * from a String.
+     */
+    public byte[] getEncryptedBytes() {
+        verifySuccess();
+        return encryptedBytes;
+    }
+
+    private void verifySuccess() {
         if (!isSuccess()) {
             throw new IllegalAccessError("Fingerprint authentication was not successful, cannot access encryption result");
         }
-        return encrypted;
     }
 }
@@ -0,0 +1,49 @@
+package com.mtramin.rxfingerprint;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AesGcmCipherProviderTest {
+
+	private static final String KEY_NAME = "key";
+
+	private Context context;
+
+	@Before
+	public void setUp() throws Exception {
+		context = mock(Context.class);
+		when(context.getPackageName()).thenReturn("com.example");
+	}
+
+	@Test
+	public void usesOwnAliasForSameKeyName() throws Exception {
+		AesCipherProvider aes = new AesCipherProvider(context, KEY_NAME);
+		AesCipherProvider aesGcm = new AesGcmCipherProvider(context, KEY_NAME);
+
+		assertEquals(KEY_NAME, aes.keyName);
+		assertEquals(KEY_NAME + AesGcmCipherProvider.ALIAS_SUFFIX, aesGcm.keyName);
+	}
+
+	@Test
+	public void usesOwnAliasForDefaultKeyName() throws Exception {
+		AesCipherProvider aes = new AesCipherProvider(context, null);
+		AesCipherProvider aesGcm = new AesGcmCipherProvider(context, null, false, 0);
+
+		assertNotEquals(aes.keyName, aesGcm.keyName);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void aesGcmValuesDoNotVerifyAgainstAesAlias() throws Exception {
+		AesCipherProvider aesGcm = new AesGcmCipherProvider(context, KEY_NAME);
+		CryptoData cryptoData = CryptoData.fromBytes(new TestEncodingProvider(), EncryptionMethod.AES_GCM, aesGcm.keyName, new byte[]{1}, new byte[AesGcmCipherProvider.IV_SIZE]);
+
+		cryptoData.verify(EncryptionMethod.AES_GCM, KEY_NAME);
+	}
+}
@@ -0,0 +1,127 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.functions.Function;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class AesStreamCipherTest {
+
+	private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+	private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+	private final List<byte[]> authenticatedIvs = new ArrayList<>();
+
+	@Test
+	public void encryptsLikeSingleOperation() throws Exception {
+		byte[] data = randomBytes(200 * 1024 + 7);
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+		byte[] iv = cipher.getIV();
+
+		byte[] encrypted = concat(AesStreamCipher.encrypt(Single.just(cipher), chunks(data, 4096)));
+
+		Cipher expected = Cipher.getInstance(TRANSFORMATION);
+		expected.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+		assertArrayEquals(concat(iv, expected.doFinal(data)), encrypted);
+	}
+
+	@Test
+	public void roundTripWithSplitInitializationVector() throws Exception {
+		byte[] data = randomBytes(100 * 1024 + 3);
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+		byte[] encrypted = concat(AesStreamCipher.encrypt(Single.just(cipher), chunks(data, 1000)));
+
+		byte[] decrypted = concat(AesStreamCipher.decrypt(authentication(), chunks(encrypted, 5)));
+
+		assertArrayEquals(data, decrypted);
+		assertEquals(1, authenticatedIvs.size());
+		assertArrayEquals(cipher.getIV(), authenticatedIvs.get(0));
+	}
+
+	@Test
+	public void emptyInput() throws Exception {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+		byte[] encrypted = concat(AesStreamCipher.encrypt(Single.just(cipher), Flowable.<ByteBuffer>empty()));
+
+		assertArrayEquals(new byte[0], concat(AesStreamCipher.decrypt(authentication(), chunks(encrypted, 64))));
+	}
+
+	@Test
+	public void truncatedInputFails() throws Exception {
+		AesStreamCipher.decrypt(authentication(), chunks(new byte[10], 4)).test()
+				.assertError(CryptoDataException.class);
+		assertEquals(0, authenticatedIvs.size());
+	}
+
+	@Test
+	public void readsInputStream() throws Exception {
+		byte[] data = randomBytes(AesStreamCipher.CHUNK_SIZE * 2 + 1);
+
+		List<ByteBuffer> chunks = AesStreamCipher.fromInputStream(new ByteArrayInputStream(data)).toList().blockingGet();
+
+		assertEquals(3, chunks.size());
+		assertArrayEquals(data, concat(Flowable.fromIterable(chunks)));
+	}
+
+	private Function<byte[], Single<Cipher>> authentication() {
+		return new Function<byte[], Single<Cipher>>() {
+			@Override
+			public Single<Cipher> apply(byte[] iv) throws Exception {
+				authenticatedIvs.add(iv.clone());
+				Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+				cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv));
+				return Single.just(cipher);
+			}
+		};
+	}
+
+	private static Flowable<ByteBuffer> chunks(byte[] data, int chunkSize) {
+		List<ByteBuffer> chunks = new ArrayList<>();
+		for (int offset = 0; offset < data.length; offset += chunkSize) {
+			chunks.add(ByteBuffer.wrap(data, offset, Math.min(chunkSize, data.length - offset)).slice());
+		}
+		return Flowable.fromIterable(chunks);
+	}
+
+	private static byte[] concat(Flowable<ByteBuffer> chunks) {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		for (ByteBuffer chunk : chunks.blockingIterable()) {
+			byte[] bytes = new byte[chunk.remaining()];
+			chunk.get(bytes);
+			outputStream.write(bytes, 0, bytes.length);
+		}
+		return outputStream.toByteArray();
+	}
+
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] result = new byte[first.length + second.length];
+		System.arraycopy(first, 0, result, 0, first.length);
+		System.arraycopy(second, 0, result, first.length, second.length);
+		return result;
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		new Random(42).nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,114 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Base64CodecTest {
+
+	// https://tools.ietf.org/html/rfc4648#section-10
+	private static final String[][] TEST_VECTORS = {
+			{"", ""},
+			{"f", "Zg=="},
+			{"fo", "Zm8="},
+			{"foo", "Zm9v"},
+			{"foob", "Zm9vYg=="},
+			{"fooba", "Zm9vYmE="},
+			{"foobar", "Zm9vYmFy"}
+	};
+
+	@Test
+	public void encode() throws Exception {
+		for (String[] vector : TEST_VECTORS) {
+			assertEquals(vector[1], Base64Codec.STANDARD.encode(vector[0].getBytes()));
+		}
+	}
+
+	@Test
+	public void decode() throws Exception {
+		for (String[] vector : TEST_VECTORS) {
+			assertEquals(vector[0], new String(Base64Codec.decode(vector[1])));
+		}
+	}
+
+	@Test
+	public void encodeUrlSafe() throws Exception {
+		byte[] input = {(byte) 0xFB, (byte) 0xFF};
+
+		assertEquals("+/8=", Base64Codec.STANDARD.encode(input));
+		assertEquals("-_8=", Base64Codec.URL_SAFE.encode(input));
+	}
+
+	@Test
+	public void decodeAcceptsBothAlphabets() throws Exception {
+		byte[] expected = {(byte) 0xFB, (byte) 0xFF};
+
+		assertTrue(Arrays.equals(expected, Base64Codec.decode("+/8=")));
+		assertTrue(Arrays.equals(expected, Base64Codec.decode("-_8=")));
+	}
+
+	@Test
+	public void decodeWrappedInput() throws Exception {
+		assertEquals("foobar", new String(Base64Codec.decode("Zm9v\nYmFy\n")));
+		assertEquals("foob", new String(Base64Codec.decode("Zm9v\r\nYg==\r\n")));
+	}
+
+	@Test
+	public void decodeWithoutPadding() throws Exception {
+		assertEquals("fo", new String(Base64Codec.decode("Zm8")));
+		assertEquals("f", new String(Base64Codec.decode("Zg")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeInvalidCharacter() throws Exception {
+		Base64Codec.decode("Zm9v*mFy");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeTruncatedInput() throws Exception {
+		Base64Codec.decode("Zm9vY");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decodeDataAfterPadding() throws Exception {
+		Base64Codec.decode("Zg==Zm9v");
+	}
+
+	@Test
+	public void encodeIntoArray() throws Exception {
+		byte[] output = new byte[10];
+		int written = Base64Codec.STANDARD.encode("xfoob".getBytes(), 1, 4, output, 2);
+
+		assertEquals(8, written);
+		assertEquals("Zm9vYg==", new String(output, 2, written));
+	}
+
+	@Test
+	public void encodeIntoCharBuffer() throws Exception {
+		CharBuffer buffer = CharBuffer.allocate(12);
+		buffer.put("ab");
+		Base64Codec.STANDARD.encode("foobar".getBytes(), 0, 6, buffer);
+
+		assertEquals(10, buffer.position());
+		buffer.flip();
+		assertEquals("abZm9vYmFy", buffer.toString());
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		Random random = new Random(42);
+		for (int length = 0; length < 100; length++) {
+			byte[] input = new byte[length];
+			random.nextBytes(input);
+
+			assertTrue(Arrays.equals(input, Base64Codec.decode(Base64Codec.STANDARD.encode(input))));
+			assertTrue(Arrays.equals(input, Base64Codec.decode(Base64Codec.URL_SAFE.encode(input))));
+			assertEquals(Base64Codec.encodedLength(length), Base64Codec.STANDARD.encode(input).length());
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Base64ProviderTest {
+
+	private final Base64Provider provider = new Base64Provider();
+
+	@Test
+	public void decode() throws Exception {
+		assertArrayEquals("foobar".getBytes(), provider.decode("Zm9vYmFy"));
+		assertArrayEquals(new byte[]{(byte) 0xFB, (byte) 0xFF}, provider.decode("-_8="));
+	}
+
+	@Test
+	public void encodeUrlSafe() throws Exception {
+		byte[] input = {(byte) 0xFB, (byte) 0xFF};
+
+		assertEquals("+/8=", provider.encode(input));
+		assertEquals("-_8=", new Base64Provider(true).encode(input));
+	}
+}
@@ -0,0 +1,61 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class BufferPoolTest {
+
+	private final BufferPool pool = new BufferPool(1);
+
+	@Test
+	public void acquireRoundsUpToSizeClass() throws Exception {
+		assertEquals(BufferPool.MIN_SIZE, pool.acquireBytes(1).length);
+		assertEquals(BufferPool.MIN_SIZE, pool.acquireBytes(BufferPool.MIN_SIZE).length);
+		assertEquals(BufferPool.MIN_SIZE * 2, pool.acquireBytes(BufferPool.MIN_SIZE + 1).length);
+		assertEquals(BufferPool.MAX_SIZE, pool.acquireChars(BufferPool.MAX_SIZE).length);
+		assertEquals(BufferPool.MAX_SIZE + 1, pool.acquireChars(BufferPool.MAX_SIZE + 1).length);
+	}
+
+	@Test
+	public void releasedArraysAreClearedAndReused() throws Exception {
+		byte[] bytes = pool.acquireBytes(100);
+		bytes[0] = 1;
+		pool.release(bytes);
+
+		byte[] reused = pool.acquireBytes(100);
+		assertSame(bytes, reused);
+		assertEquals(0, reused[0]);
+
+		char[] chars = pool.acquireChars(100);
+		chars[0] = 'a';
+		pool.release(chars);
+
+		char[] reusedChars = pool.acquireChars(100);
+		assertSame(chars, reusedChars);
+		assertEquals('\u0000', reusedChars[0]);
+	}
+
+	@Test
+	public void keepsBoundedNumberOfArrays() throws Exception {
+		byte[] first = pool.acquireBytes(100);
+		byte[] second = pool.acquireBytes(100);
+		pool.release(first);
+		pool.release(second);
+
+		assertSame(first, pool.acquireBytes(100));
+		assertNotSame(second, pool.acquireBytes(100));
+	}
+
+	@Test
+	public void oversizedArraysAreClearedButNotPooled() throws Exception {
+		byte[] bytes = pool.acquireBytes(BufferPool.MAX_SIZE + 1);
+		bytes[0] = 1;
+		pool.release(bytes);
+
+		assertEquals(0, bytes[0]);
+		assertNotSame(bytes, pool.acquireBytes(BufferPool.MAX_SIZE + 1));
+	}
+}
@@ -0,0 +1,123 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CbcChainingTest {
+
+	private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+	private static final String[] VALUES = {"", "short", "exactly16bytes!!", "a value that spans more than two AES blocks"};
+
+	private final SecretKey key = new SecretKeySpec(new byte[32], "AES");
+
+	@Test
+	public void chainedValuesDecryptIndependently() throws Exception {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+
+		List<byte[][]> encrypted = CbcChaining.encrypt(cipher, plainTexts());
+
+		assertEquals(VALUES.length, encrypted.size());
+		for (int i = VALUES.length - 1; i >= 0; i--) {
+			Cipher decryption = Cipher.getInstance(TRANSFORMATION);
+			decryption.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(encrypted.get(i)[1]));
+
+			assertArrayEquals(VALUES[i].getBytes("UTF-8"), decryption.doFinal(encrypted.get(i)[0]));
+		}
+	}
+
+	@Test
+	public void singleValueMatchesRegularEncryption() throws Exception {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+		byte[] iv = cipher.getIV();
+		byte[] expected = cipher.doFinal(VALUES[3].getBytes("UTF-8"));
+
+		cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
+		List<byte[][]> encrypted = CbcChaining.encrypt(cipher, plainTexts().subList(3, 4));
+
+		assertArrayEquals(expected, encrypted.get(0)[0]);
+		assertArrayEquals(iv, encrypted.get(0)[1]);
+	}
+
+	@Test
+	public void clearsPlainTexts() throws Exception {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+		List<byte[]> plainTexts = plainTexts();
+
+		CbcChaining.encrypt(cipher, plainTexts);
+
+		for (byte[] plainText : plainTexts) {
+			assertArrayEquals(new byte[plainText.length], plainText);
+		}
+	}
+
+	@Test
+	public void decryptsChainedValues() throws Exception {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+		List<byte[][]> encrypted = CbcChaining.encrypt(cipher, plainTexts());
+
+		assertDecrypted(encrypted, VALUES);
+	}
+
+	@Test
+	public void decryptsIndependentlyEncryptedValues() throws Exception {
+		List<byte[][]> encrypted = new ArrayList<>();
+		for (String value : VALUES) {
+			Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+			cipher.init(Cipher.ENCRYPT_MODE, key);
+			encrypted.add(new byte[][]{cipher.doFinal(value.getBytes("UTF-8")), cipher.getIV()});
+		}
+		Collections.reverse(encrypted);
+
+		String[] expected = VALUES.clone();
+		Collections.reverse(Arrays.asList(expected));
+		assertDecrypted(encrypted, expected);
+	}
+
+	@Test(expected = BadPaddingException.class)
+	public void decryptWithWrongKeyFails() throws Exception {
+		Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+		cipher.init(Cipher.ENCRYPT_MODE, key);
+		List<byte[][]> encrypted = CbcChaining.encrypt(cipher, plainTexts());
+
+		Cipher decryption = Cipher.getInstance(TRANSFORMATION);
+		decryption.init(Cipher.DECRYPT_MODE, new SecretKeySpec(new byte[32], 1, 16, "AES"), new IvParameterSpec(encrypted.get(0)[1]));
+		CbcChaining.decrypt(decryption, encrypted);
+	}
+
+	private void assertDecrypted(List<byte[][]> encrypted, String[] expected) throws Exception {
+		Cipher decryption = Cipher.getInstance(TRANSFORMATION);
+		decryption.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(encrypted.get(0)[1]));
+
+		List<byte[]> decrypted = CbcChaining.decrypt(decryption, encrypted);
+
+		assertEquals(expected.length, decrypted.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i].getBytes("UTF-8"), decrypted.get(i));
+		}
+	}
+
+	private static List<byte[]> plainTexts() throws Exception {
+		List<byte[]> plainTexts = new ArrayList<>();
+		for (String value : VALUES) {
+			plainTexts.add(value.getBytes("UTF-8"));
+		}
+		return plainTexts;
+	}
+}
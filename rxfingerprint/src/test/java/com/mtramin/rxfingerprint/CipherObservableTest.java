@@ -0,0 +1,211 @@
+package com.mtramin.rxfingerprint;
+
+import android.hardware.fingerprint.FingerprintManager;
+import android.hardware.fingerprint.FingerprintManager.AuthenticationResult;
+import android.hardware.fingerprint.FingerprintManager.CryptoObject;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.security.keystore.UserNotAuthenticatedException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings({"NewApi", "MissingPermission"})
+@RunWith(MockitoJUnitRunner.class)
+public class CipherObservableTest {
+
+	@Mock FingerprintApiWrapper fingerprintApiWrapper;
+	@Mock FingerprintManager fingerprintManager;
+	@Mock CancellationSignal cancellationSignal;
+	@Mock CipherProvider cipherProvider;
+
+	private TestCipherObservable cipherObservable;
+
+	@Before
+	public void setUp() throws Exception {
+		when(fingerprintApiWrapper.createCancellationSignal()).thenReturn(cancellationSignal);
+		when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
+
+		PreparationScheduler.set(Schedulers.trampoline());
+
+		cipherObservable = new TestCipherObservable(fingerprintApiWrapper, cipherProvider);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		PreparationScheduler.set(null);
+		RxJavaPlugins.reset();
+	}
+
+	@Test
+	public void timeBoundKeySkipsSensorWhileSessionIsValid() throws Exception {
+		when(cipherProvider.isTimeBound()).thenReturn(true);
+
+		Observable.create(cipherObservable).test()
+				.assertValue("done")
+				.assertComplete();
+
+		verify(fingerprintManager, never()).authenticate(any(CryptoObject.class), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), any(Handler.class));
+		assertEquals(1, cipherObservable.initializations);
+	}
+
+	@Test
+	public void expiredSessionAuthenticatesAndInitializesCipherAgain() throws Exception {
+		cipherObservable.sessionExpired = true;
+
+		TestObserver<String> testObserver = Observable.create(cipherObservable).test();
+
+		ArgumentCaptor<CryptoObject> cryptoObjectCaptor = ArgumentCaptor.forClass(CryptoObject.class);
+		ArgumentCaptor<FingerprintManager.AuthenticationCallback> callbackCaptor = ArgumentCaptor.forClass(FingerprintManager.AuthenticationCallback.class);
+		verify(fingerprintManager).authenticate(cryptoObjectCaptor.capture(), any(CancellationSignal.class), anyInt(), callbackCaptor.capture(), any(Handler.class));
+		assertNull(cryptoObjectCaptor.getValue());
+
+		cipherObservable.sessionExpired = false;
+		callbackCaptor.getValue().onAuthenticationSucceeded(mock(AuthenticationResult.class));
+
+		testObserver.assertValue("done")
+				.assertComplete();
+		assertEquals(1, cipherObservable.initializations);
+	}
+
+	@Test
+	public void perUseKeyAuthenticatesWithCryptoObject() throws Exception {
+		when(cipherProvider.isTimeBound()).thenReturn(false);
+
+		TestObserver<String> testObserver = Observable.create(cipherObservable).test();
+
+		ArgumentCaptor<CryptoObject> cryptoObjectCaptor = ArgumentCaptor.forClass(CryptoObject.class);
+		ArgumentCaptor<FingerprintManager.AuthenticationCallback> callbackCaptor = ArgumentCaptor.forClass(FingerprintManager.AuthenticationCallback.class);
+		verify(fingerprintManager).authenticate(cryptoObjectCaptor.capture(), any(CancellationSignal.class), anyInt(), callbackCaptor.capture(), any(Handler.class));
+		assertNotNull(cryptoObjectCaptor.getValue());
+
+		AuthenticationResult result = mock(AuthenticationResult.class);
+		when(result.getCryptoObject()).thenReturn(cryptoObjectCaptor.getValue());
+		callbackCaptor.getValue().onAuthenticationSucceeded(result);
+
+		testObserver.assertValue("done")
+				.assertComplete();
+		assertEquals(1, cipherObservable.initializations);
+	}
+
+	@Test
+	public void preparedCipherStartsSensorWithoutPreparation() throws Exception {
+		when(cipherProvider.isTimeBound()).thenReturn(false);
+		PreparedOperation<String> preparedOperation = PreparedOperation.create(cipherObservable, 1, TimeUnit.MINUTES);
+		assertTrue(preparedOperation.isReady());
+		PreparationScheduler.set(new TestScheduler());
+
+		preparedOperation.authenticate().test();
+
+		ArgumentCaptor<CryptoObject> cryptoObjectCaptor = ArgumentCaptor.forClass(CryptoObject.class);
+		verify(fingerprintManager).authenticate(cryptoObjectCaptor.capture(), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), any(Handler.class));
+		assertNotNull(cryptoObjectCaptor.getValue());
+		assertEquals(1, cipherObservable.initializations);
+		assertFalse(preparedOperation.isReady());
+	}
+
+	@Test
+	public void disposedPreparedOperationInitializesCipherAgain() throws Exception {
+		when(cipherProvider.isTimeBound()).thenReturn(false);
+		PreparedOperation<String> preparedOperation = PreparedOperation.create(cipherObservable, 1, TimeUnit.MINUTES);
+
+		preparedOperation.dispose();
+		assertFalse(preparedOperation.isReady());
+		preparedOperation.authenticate().test();
+
+		verify(fingerprintManager).authenticate(any(CryptoObject.class), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), any(Handler.class));
+		assertEquals(2, cipherObservable.initializations);
+	}
+
+	@Test
+	public void preparedOperationExpires() throws Exception {
+		when(cipherProvider.isTimeBound()).thenReturn(false);
+		final TestScheduler scheduler = new TestScheduler();
+		RxJavaPlugins.setComputationSchedulerHandler(new Function<Scheduler, Scheduler>() {
+			@Override
+			public Scheduler apply(Scheduler ignored) throws Exception {
+				return scheduler;
+			}
+		});
+		PreparedOperation<String> preparedOperation = PreparedOperation.create(cipherObservable, 30, TimeUnit.SECONDS);
+
+		scheduler.advanceTimeBy(29, TimeUnit.SECONDS);
+		assertTrue(preparedOperation.isReady());
+		scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+		assertTrue(preparedOperation.isDisposed());
+		assertFalse(preparedOperation.isReady());
+	}
+
+	@Test
+	public void timeBoundKeyHasNothingToPrepare() throws Exception {
+		when(cipherProvider.isTimeBound()).thenReturn(true);
+
+		PreparedOperation<String> preparedOperation = PreparedOperation.create(cipherObservable, 1, TimeUnit.MINUTES);
+
+		assertFalse(preparedOperation.isReady());
+		assertEquals(0, cipherObservable.initializations);
+	}
+
+	private static class TestCipherObservable extends CipherObservable<String> {
+		boolean sessionExpired;
+		int initializations;
+
+		TestCipherObservable(FingerprintApiWrapper fingerprintApiWrapper, CipherProvider cipherProvider) {
+			super(fingerprintApiWrapper, cipherProvider);
+		}
+
+		@Override
+		Cipher initCipher() throws Exception {
+			if (sessionExpired) {
+				throw new UserNotAuthenticatedException();
+			}
+			initializations++;
+			return Cipher.getInstance("AES/CBC/PKCS5Padding");
+		}
+
+		@Override
+		void onCipherAuthenticated(ObservableEmitter<String> emitter, Cipher cipher) {
+			emitter.onNext("done");
+			emitter.onComplete();
+		}
+
+		@Override
+		protected void onAuthenticationHelp(ObservableEmitter<String> emitter, int helpMessageId, String helpString) {
+		}
+
+		@Override
+		protected void onAuthenticationFailed(ObservableEmitter<String> emitter) {
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConversionUtilsTest {
+
+	private static final String TEXT = "p\u00e4ssw\u00f6rd \u20ac \ud83d\udd11";
+
+	@Test
+	public void toBytes() throws Exception {
+		char[] chars = TEXT.toCharArray();
+		byte[] bytes = ConversionUtils.toBytes(chars);
+
+		assertTrue(Arrays.equals(TEXT.getBytes("UTF-8"), bytes));
+		assertTrue(Arrays.equals(new char[chars.length], chars));
+	}
+
+	@Test
+	public void toChars() throws Exception {
+		byte[] bytes = TEXT.getBytes("UTF-8");
+		char[] chars = ConversionUtils.toChars(bytes);
+
+		assertEquals(TEXT, new String(chars));
+		assertTrue(Arrays.equals(new byte[bytes.length], bytes));
+	}
+
+	@Test
+	public void largeValues() throws Exception {
+		char[] chars = new char[BufferPool.MAX_SIZE];
+		Arrays.fill(chars, '\u00e4');
+		String text = new String(chars);
+
+		assertEquals(text, new String(ConversionUtils.toChars(ConversionUtils.toBytes(chars))));
+	}
+
+	@Test
+	public void emptyValues() throws Exception {
+		assertEquals(0, ConversionUtils.toBytes(new char[0]).length);
+		assertEquals(0, ConversionUtils.toChars(new byte[0]).length);
+	}
+}
@@ -2,15 +2,22 @@ package com.mtramin.rxfingerprint;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class CryptoDataTest {
 
 	private static final String TEST_MESSAGE = "testMessage";
 	private static final String TEST_IV = "testIv";
-	private static final String INPUT = TEST_MESSAGE + CryptoData.SEPARATOR + TEST_IV;
+	private static final String INPUT = Base64Codec.STANDARD.encode(TEST_MESSAGE.getBytes()) + CryptoData.SEPARATOR + Base64Codec.STANDARD.encode(TEST_IV.getBytes());
+	private static final String KEY_NAME = "testKey";
+	private static final byte[] IV = new byte[CbcChaining.BLOCK_SIZE];
 
 	private EncodingProvider encodingProvider = new TestEncodingProvider();
 
@@ -20,7 +27,7 @@ public class CryptoDataTest {
 
 		assertTrue(Arrays.equals(TEST_MESSAGE.getBytes(), cryptoData.getMessage()));
 		assertTrue(Arrays.equals(TEST_IV.getBytes(), cryptoData.getIv()));
-		assertTrue(cryptoData.toString().contains(CryptoData.SEPARATOR));
+		assertEquals(INPUT, cryptoData.toString());
 	}
 
 	@Test
@@ -32,6 +39,151 @@ public class CryptoDataTest {
 		assertTrue(cryptoData.toString().contains(CryptoData.SEPARATOR));
 	}
 
+	@Test
+	public void fromBinary() throws Exception {
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES, KEY_NAME, TEST_MESSAGE.getBytes(), IV).toBinary();
+		CryptoData cryptoData = CryptoData.fromBinary(encodingProvider, binary);
+
+		assertEquals(EncryptionMethod.AES, cryptoData.getMethod());
+		assertTrue(Arrays.equals(TEST_MESSAGE.getBytes(), cryptoData.getMessage()));
+		assertTrue(Arrays.equals(IV, cryptoData.getIv()));
+		assertTrue(Arrays.equals(binary, cryptoData.toBinary()));
+	}
+
+	@Test
+	public void fromBinaryWithoutIv() throws Exception {
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.RSA, KEY_NAME, TEST_MESSAGE.getBytes(), new byte[0]).toBinary();
+		CryptoData cryptoData = CryptoData.fromBinary(encodingProvider, binary);
+
+		assertEquals(EncryptionMethod.RSA, cryptoData.getMethod());
+		assertTrue(Arrays.equals(TEST_MESSAGE.getBytes(), cryptoData.getMessage()));
+		assertEquals(0, cryptoData.getIv().length);
+	}
+
+	@Test
+	public void fromBinaryDoesNotCopyMessage() throws Exception {
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES_ENVELOPE, KEY_NAME, TEST_MESSAGE.getBytes(), IV).toBinary();
+		ByteBuffer message = CryptoData.fromBinary(encodingProvider, binary).getMessageBuffer();
+
+		assertSame(binary, message.array());
+		assertEquals(CryptoData.HEADER_SIZE + IV.length, message.arrayOffset() + message.position());
+		assertEquals(TEST_MESSAGE.length(), message.remaining());
+	}
+
+	@Test
+	public void fromBinaryWithGcm() throws Exception {
+		byte[] iv = Arrays.copyOf(IV, AesGcmCipherProvider.IV_SIZE);
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES_GCM, KEY_NAME, TEST_MESSAGE.getBytes(), iv).toBinary();
+
+		CryptoData cryptoData = CryptoData.fromBinary(encodingProvider, binary);
+
+		assertEquals(EncryptionMethod.AES_GCM, cryptoData.getMethod());
+		assertArrayEquals(iv, cryptoData.getIv());
+		assertArrayEquals(TEST_MESSAGE.getBytes(), cryptoData.getMessage());
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void fromBinaryWithGcmAndCbcIv() throws Exception {
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES_GCM, KEY_NAME, TEST_MESSAGE.getBytes(), IV).toBinary();
+
+		CryptoData.fromBinary(encodingProvider, binary);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void fromBinaryWithUnknownVersion() throws Exception {
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES, KEY_NAME, TEST_MESSAGE.getBytes(), IV).toBinary();
+		binary[1] = 0;
+
+		CryptoData.fromBinary(encodingProvider, binary);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void fromBinaryWithInvalidIvLength() throws Exception {
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES, KEY_NAME, TEST_MESSAGE.getBytes(), new byte[0]).toBinary();
+
+		CryptoData.fromBinary(encodingProvider, binary);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void fromBinaryWithoutMessage() throws Exception {
+		byte[] binary = CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES, KEY_NAME, new byte[0], IV).toBinary();
+
+		CryptoData.fromBinary(encodingProvider, binary);
+	}
+
+	@Test
+	public void fromStringReadsMethodFromHeader() throws Exception {
+		String encrypted = CryptoData.fromBytes(encodingProvider, EncryptionMethod.RSA, KEY_NAME, TEST_MESSAGE.getBytes(), new byte[0]).toString();
+		CryptoData cryptoData = CryptoData.fromString(encodingProvider, encrypted, EncryptionMethod.AES);
+
+		assertFalse(encrypted.contains(CryptoData.SEPARATOR));
+		assertEquals(EncryptionMethod.RSA, cryptoData.getMethod());
+		assertTrue(Arrays.equals(TEST_MESSAGE.getBytes(), cryptoData.getMessage()));
+	}
+
+	@Test
+	public void fromStringUrlSafeContainerWithSeparator() throws Exception {
+		// encodes to "-_-A" once aligned behind the header
+		byte[] message = {0, (byte) 0xFB, (byte) 0xFF, (byte) 0x80};
+		EncodingProvider urlSafeProvider = new Base64Provider(true);
+		String encrypted = CryptoData.fromBytes(urlSafeProvider, EncryptionMethod.RSA, KEY_NAME, message, new byte[0]).toString();
+		CryptoData cryptoData = CryptoData.fromString(urlSafeProvider, encrypted, EncryptionMethod.AES);
+
+		assertTrue(encrypted.contains(CryptoData.SEPARATOR));
+		assertEquals(EncryptionMethod.RSA, cryptoData.getMethod());
+		assertArrayEquals(message, cryptoData.getMessage());
+		cryptoData.verify(EncryptionMethod.RSA, KEY_NAME);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void fromStringLegacyWithUrlSafeParts() throws Exception {
+		CryptoData.fromString(encodingProvider, "test_Message" + CryptoData.SEPARATOR + TEST_IV);
+	}
+
+	@Test
+	public void fromStringLegacyRsa() throws Exception {
+		String encrypted = Base64Codec.STANDARD.encode(TEST_MESSAGE.getBytes());
+		CryptoData cryptoData = CryptoData.fromString(encodingProvider, encrypted, EncryptionMethod.RSA);
+
+		assertEquals(EncryptionMethod.RSA, cryptoData.getMethod());
+		assertTrue(Arrays.equals(TEST_MESSAGE.getBytes(), cryptoData.getMessage()));
+		cryptoData.verify(EncryptionMethod.RSA, "otherKey");
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void fromStringLegacyWithoutSeparator() throws Exception {
+		CryptoData.fromString(encodingProvider, encodingProvider.encode(TEST_MESSAGE.getBytes()), EncryptionMethod.AES);
+	}
+
+	@Test
+	public void fromStringLegacyDecodesStandardBase64() throws Exception {
+		EncodingProvider urlSafeProvider = new Base64Provider(true);
+		byte[] message = {(byte) 0xFB, (byte) 0xFF};
+		String encrypted = Base64Codec.STANDARD.encode(message) + CryptoData.SEPARATOR + Base64Codec.STANDARD.encode(TEST_IV.getBytes());
+		CryptoData cryptoData = CryptoData.fromString(urlSafeProvider, encrypted);
+
+		assertArrayEquals(message, cryptoData.getMessage());
+		assertEquals(encrypted, cryptoData.toString());
+	}
+
+	@Test
+	public void verify() throws Exception {
+		CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES, KEY_NAME, TEST_MESSAGE.getBytes(), IV)
+				.verify(EncryptionMethod.AES, KEY_NAME);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void verifyOtherMethod() throws Exception {
+		CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES, KEY_NAME, TEST_MESSAGE.getBytes(), IV)
+				.verify(EncryptionMethod.AES_ENVELOPE, KEY_NAME);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void verifyOtherKeyName() throws Exception {
+		CryptoData.fromBytes(encodingProvider, EncryptionMethod.AES, KEY_NAME, TEST_MESSAGE.getBytes(), IV)
+				.verify(EncryptionMethod.AES, "otherKey");
+	}
+
 	@Test(expected = CryptoDataException.class)
 	public void verifyInvalidString() throws Exception {
 		CryptoData.verifyCryptoDataString("123");
@@ -0,0 +1,23 @@
+package com.mtramin.rxfingerprint;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+
+public class EcKeyProviderTest {
+
+	@After
+	public void tearDown() throws Exception {
+		TestHelper.setSdkLevel(23);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void unsupportedBelowApi31() throws Exception {
+		TestHelper.setSdkLevel(30);
+
+		new EcKeyProvider(mock(Context.class), "key");
+	}
+}
@@ -0,0 +1,80 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+
+import javax.crypto.AEADBadTagException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class EciesDataTest {
+
+	private KeyPair keyPair;
+
+	@Before
+	public void setUp() throws Exception {
+		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+		keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+		keyPair = keyPairGenerator.generateKeyPair();
+	}
+
+	@Test
+	public void sealAndOpen() throws Exception {
+		EciesData sealed = EciesData.seal(keyPair.getPublic(), ByteBuffer.wrap("value".getBytes("UTF-8")));
+
+		EciesData parsed = EciesData.fromBytes(ByteBuffer.wrap(sealed.toBytes()), sealed.getNonce());
+
+		assertArrayEquals("value".getBytes("UTF-8"), open(parsed));
+	}
+
+	@Test
+	public void encryptedValueIsSmall() throws Exception {
+		EciesData sealed = EciesData.seal(keyPair.getPublic(), ByteBuffer.wrap(new byte[10]));
+
+		assertEquals(65 + 10 + 16, sealed.toBytes().length);
+		assertEquals(EciesData.NONCE_SIZE, sealed.getNonce().length);
+	}
+
+	@Test
+	public void clearsPlainText() throws Exception {
+		byte[] plainText = "value".getBytes("UTF-8");
+
+		EciesData.seal(keyPair.getPublic(), ByteBuffer.wrap(plainText));
+
+		assertArrayEquals(new byte[plainText.length], plainText);
+	}
+
+	@Test(expected = AEADBadTagException.class)
+	public void tamperedValueFails() throws Exception {
+		EciesData sealed = EciesData.seal(keyPair.getPublic(), ByteBuffer.wrap("value".getBytes("UTF-8")));
+		byte[] bytes = sealed.toBytes();
+		bytes[bytes.length - 1] ^= 1;
+
+		open(EciesData.fromBytes(ByteBuffer.wrap(bytes), sealed.getNonce()));
+	}
+
+	@Test(expected = AEADBadTagException.class)
+	public void otherKeyFails() throws Exception {
+		EciesData sealed = EciesData.seal(keyPair.getPublic(), ByteBuffer.wrap("value".getBytes("UTF-8")));
+		setUp();
+
+		open(EciesData.fromBytes(ByteBuffer.wrap(sealed.toBytes()), sealed.getNonce()));
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void truncatedInputThrows() throws Exception {
+		EciesData.fromBytes(ByteBuffer.allocate(65 + 15), new byte[EciesData.NONCE_SIZE]);
+	}
+
+	private byte[] open(EciesData eciesData) throws Exception {
+		return eciesData.open(keyPair.getPrivate(), ((ECPublicKey) keyPair.getPublic()).getParams(), DecryptionFormat.BYTES)
+				.getDecryptedBytes();
+	}
+}
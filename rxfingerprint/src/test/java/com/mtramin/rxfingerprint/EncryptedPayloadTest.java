@@ -0,0 +1,61 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EncryptedPayloadTest {
+
+	private static final byte[] MESSAGE = "testMessage".getBytes();
+	private static final byte[] IV = new byte[CbcChaining.BLOCK_SIZE];
+
+	private final byte[] encrypted = CryptoData.fromBytes(new TestEncodingProvider(), EncryptionMethod.AES_ENVELOPE, "testKey", MESSAGE, IV).toBinary();
+
+	@Test
+	public void fromBytes() throws Exception {
+		EncryptedPayload payload = EncryptedPayload.fromBytes(encrypted);
+
+		assertEquals(EncryptionMethod.AES_ENVELOPE, payload.getMethod());
+		assertTrue(Arrays.equals(encrypted, payload.toBytes()));
+		assertTrue(Arrays.equals(MESSAGE, payload.getCryptoData().getMessage()));
+	}
+
+	@Test
+	public void fromBytesIsNotAffectedByChangesOfInput() throws Exception {
+		EncryptedPayload payload = EncryptedPayload.fromBytes(encrypted);
+		Arrays.fill(encrypted, (byte) 0);
+
+		assertTrue(Arrays.equals(MESSAGE, payload.getCryptoData().getMessage()));
+	}
+
+	@Test
+	public void toBytesIsNotAffectedByChangesOfOutput() throws Exception {
+		EncryptedPayload payload = EncryptedPayload.fromBytes(encrypted);
+		Arrays.fill(payload.toBytes(), (byte) 0);
+
+		assertTrue(Arrays.equals(encrypted, payload.toBytes()));
+	}
+
+	@Test
+	public void fromString() throws Exception {
+		String encoded = EncryptedPayload.fromBytes(encrypted).toString();
+		EncryptedPayload payload = EncryptedPayload.fromString(encoded);
+
+		assertEquals(EncryptionMethod.AES_ENVELOPE, payload.getMethod());
+		assertEquals(encoded, payload.toString());
+		assertTrue(Arrays.equals(encrypted, payload.toBytes()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fromInvalidString() throws Exception {
+		EncryptedPayload.fromString("not encrypted");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fromInvalidBytes() throws Exception {
+		EncryptedPayload.fromBytes(MESSAGE);
+	}
+}
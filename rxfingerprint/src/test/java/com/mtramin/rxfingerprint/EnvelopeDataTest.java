@@ -0,0 +1,78 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.crypto.AEADBadTagException;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class EnvelopeDataTest {
+
+	private static final byte[] WRAPPED_KEY = new byte[48];
+
+	@Test
+	public void sealAndOpen() throws Exception {
+		byte[] dataKey = EnvelopeData.generateDataKey();
+
+		byte[] bytes = EnvelopeData.seal(dataKey, WRAPPED_KEY, "value".getBytes("UTF-8")).toBytes();
+		EnvelopeData envelopeData = EnvelopeData.fromBytes(bytes);
+
+		assertArrayEquals(WRAPPED_KEY, envelopeData.getWrappedKey());
+		assertArrayEquals("value".getBytes("UTF-8"), envelopeData.open(dataKey));
+	}
+
+	@Test
+	public void sealAndOpenWithLongWrappedKey() throws Exception {
+		byte[] dataKey = EnvelopeData.generateDataKey();
+		byte[] wrappedKey = new byte[256];
+		Arrays.fill(wrappedKey, (byte) 7);
+
+		byte[] bytes = EnvelopeData.seal(dataKey, wrappedKey, "value".getBytes("UTF-8")).toBytes(EnvelopeData.LONG_KEY_LENGTH);
+		EnvelopeData envelopeData = EnvelopeData.fromBytes(ByteBuffer.wrap(bytes), EnvelopeData.LONG_KEY_LENGTH);
+
+		assertArrayEquals(wrappedKey, envelopeData.getWrappedKey());
+		assertArrayEquals("value".getBytes("UTF-8"), envelopeData.open(dataKey));
+	}
+
+	@Test
+	public void clearsPlainText() throws Exception {
+		byte[] plainText = "value".getBytes("UTF-8");
+
+		EnvelopeData.seal(EnvelopeData.generateDataKey(), WRAPPED_KEY, plainText);
+
+		assertArrayEquals(new byte[plainText.length], plainText);
+	}
+
+	@Test(expected = AEADBadTagException.class)
+	public void tamperedEnvelopeFails() throws Exception {
+		byte[] dataKey = EnvelopeData.generateDataKey();
+		byte[] bytes = EnvelopeData.seal(dataKey, WRAPPED_KEY, "value".getBytes("UTF-8")).toBytes();
+		bytes[bytes.length - 1] ^= 1;
+
+		EnvelopeData.fromBytes(bytes).open(dataKey);
+	}
+
+	@Test(expected = AEADBadTagException.class)
+	public void swappedWrappedKeyFails() throws Exception {
+		byte[] dataKey = EnvelopeData.generateDataKey();
+		byte[] bytes = EnvelopeData.seal(dataKey, WRAPPED_KEY, "value".getBytes("UTF-8")).toBytes();
+		bytes[1] ^= 1;
+
+		EnvelopeData.fromBytes(bytes).open(dataKey);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void emptyInputThrows() throws Exception {
+		EnvelopeData.fromBytes(new byte[0]);
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void truncatedInputThrows() throws Exception {
+		byte[] bytes = EnvelopeData.seal(EnvelopeData.generateDataKey(), WRAPPED_KEY, new byte[0]).toBytes();
+
+		EnvelopeData.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+	}
+}
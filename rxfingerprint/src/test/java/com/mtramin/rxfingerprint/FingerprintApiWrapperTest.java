@@ -30,7 +30,11 @@ import org.mockito.runners.MockitoJUnitRunner;
 import static android.Manifest.permission.USE_FINGERPRINT;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressLint("MissingPermission")
@@ -161,4 +165,29 @@ public class FingerprintApiWrapperTest {
 		FingerprintApiWrapper fingerprintApiWrapper = new FingerprintApiWrapper(context);
 		fingerprintApiWrapper.getFingerprintManager();
 	}
+
+	@Test
+	public void availableFingerprintManagerChecksPermissionOnce() throws Exception {
+		TestHelper.setSdkLevel(23);
+		when(context.checkSelfPermission(USE_FINGERPRINT)).thenReturn(PackageManager.PERMISSION_GRANTED);
+		when(context.getSystemService(Context.FINGERPRINT_SERVICE)).thenReturn(fingerprintManager);
+		when(fingerprintManager.isHardwareDetected()).thenReturn(true);
+		when(fingerprintManager.hasEnrolledFingerprints()).thenReturn(true);
+
+		FingerprintApiWrapper fingerprintApiWrapper = new FingerprintApiWrapper(context);
+		assertSame(fingerprintManager, fingerprintApiWrapper.getAvailableFingerprintManager());
+		verify(context, times(1)).checkSelfPermission(USE_FINGERPRINT);
+	}
+
+	@Test
+	public void noAvailableFingerprintManagerWithoutEnrolledFingerprints() throws Exception {
+		TestHelper.setSdkLevel(23);
+		when(context.checkSelfPermission(USE_FINGERPRINT)).thenReturn(PackageManager.PERMISSION_GRANTED);
+		when(context.getSystemService(Context.FINGERPRINT_SERVICE)).thenReturn(fingerprintManager);
+		when(fingerprintManager.isHardwareDetected()).thenReturn(true);
+		when(fingerprintManager.hasEnrolledFingerprints()).thenReturn(false);
+
+		FingerprintApiWrapper fingerprintApiWrapper = new FingerprintApiWrapper(context);
+		assertNull(fingerprintApiWrapper.getAvailableFingerprintManager());
+	}
 }
@@ -11,6 +11,7 @@ import com.mtramin.rxfingerprint.data.FingerprintAuthenticationResult;
 import com.mtramin.rxfingerprint.data.FingerprintResult;
 import com.mtramin.rxfingerprint.data.FingerprintUnavailableException;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,11 +21,15 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.TestScheduler;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,22 +53,40 @@ public class FingerprintAuthenticationTest {
     public void setUp() throws Exception {
         when(fingerprintApiWrapper.createCancellationSignal()).thenReturn(cancellationSignal);
 
+        PreparationScheduler.set(Schedulers.trampoline());
+
         observable = Observable.create(new FingerprintAuthenticationObservable(fingerprintApiWrapper));
     }
 
+    @After
+    public void tearDown() throws Exception {
+        PreparationScheduler.set(null);
+        CallbackHandler.set(null);
+    }
+
     @Test
     public void testFingerprintNotAvailable() throws Exception {
-        when(fingerprintApiWrapper.isUnavailable()).thenReturn(true);
+        when(fingerprintApiWrapper.isApiUnavailable()).thenReturn(false);
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(null);
 
         observable.test()
                 .assertNoValues()
                 .assertError(FingerprintUnavailableException.class);
     }
 
+    @Test
+    public void testFingerprintApiNotAvailable() throws Exception {
+        when(fingerprintApiWrapper.isApiUnavailable()).thenReturn(true);
+
+        observable.test()
+                .assertNoValues()
+                .assertError(FingerprintUnavailableException.class);
+        verify(fingerprintApiWrapper, never()).getAvailableFingerprintManager();
+    }
+
     @Test
     public void testAuthenticationSuccessful() throws Exception {
-        when(fingerprintApiWrapper.isUnavailable()).thenReturn(false);
-        when(fingerprintApiWrapper.getFingerprintManager()).thenReturn(fingerprintManager);
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
 
         AuthenticationResult result = mock(AuthenticationResult.class);
         TestObserver<FingerprintAuthenticationResult> testObserver = observable.test();
@@ -85,8 +108,7 @@ public class FingerprintAuthenticationTest {
 
     @Test
     public void testAuthenticationError() throws Exception {
-        when(fingerprintApiWrapper.isUnavailable()).thenReturn(false);
-        when(fingerprintApiWrapper.getFingerprintManager()).thenReturn(fingerprintManager);
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
 
         TestObserver<FingerprintAuthenticationResult> testObserver = observable.test();
 
@@ -106,8 +128,7 @@ public class FingerprintAuthenticationTest {
 
     @Test
     public void testAuthenticationFailed() throws Exception {
-        when(fingerprintApiWrapper.isUnavailable()).thenReturn(false);
-        when(fingerprintApiWrapper.getFingerprintManager()).thenReturn(fingerprintManager);
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
 
         TestObserver<FingerprintAuthenticationResult> testObserver = observable.test();
 
@@ -128,8 +149,7 @@ public class FingerprintAuthenticationTest {
 
     @Test
     public void testAuthenticationHelp() throws Exception {
-        when(fingerprintApiWrapper.isUnavailable()).thenReturn(false);
-        when(fingerprintApiWrapper.getFingerprintManager()).thenReturn(fingerprintManager);
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
 
         TestObserver<FingerprintAuthenticationResult> testObserver = observable.test();
 
@@ -150,8 +170,7 @@ public class FingerprintAuthenticationTest {
 
     @Test
     public void testAuthenticationSuccessfulOnSecondTry() throws Exception {
-        when(fingerprintApiWrapper.isUnavailable()).thenReturn(false);
-        when(fingerprintApiWrapper.getFingerprintManager()).thenReturn(fingerprintManager);
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
 
         TestObserver<FingerprintAuthenticationResult> testObserver = observable.test();
 
@@ -184,12 +203,62 @@ public class FingerprintAuthenticationTest {
 
     @Test
     public void cancelsFingerprintOperationWhenDisposed() throws Exception {
-        when(fingerprintApiWrapper.isUnavailable()).thenReturn(false);
-        when(fingerprintApiWrapper.getFingerprintManager()).thenReturn(fingerprintManager);
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
 
         TestObserver<FingerprintAuthenticationResult> test = observable.test();
         test.dispose();
 
         verify(cancellationSignal).cancel();
     }
+
+    @Test
+    public void startsSensorOnPreparationScheduler() throws Exception {
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
+        TestScheduler scheduler = new TestScheduler();
+        PreparationScheduler.set(scheduler);
+
+        TestObserver<FingerprintAuthenticationResult> testObserver = observable.test();
+        verify(fingerprintManager, never()).authenticate(any(CryptoObject.class), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), any(Handler.class));
+
+        scheduler.triggerActions();
+
+        verify(fingerprintManager).authenticate(any(CryptoObject.class), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), any(Handler.class));
+        testObserver.assertNotTerminated();
+    }
+
+    @Test
+    public void disposingBeforePreparationDoesNotStartSensor() throws Exception {
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
+        TestScheduler scheduler = new TestScheduler();
+        PreparationScheduler.set(scheduler);
+
+        observable.test().dispose();
+        scheduler.triggerActions();
+
+        verify(fingerprintManager, never()).authenticate(any(CryptoObject.class), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), any(Handler.class));
+    }
+
+    @Test
+    public void receivesCallbacksOnConfiguredHandler() throws Exception {
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(fingerprintManager);
+        Handler handler = mock(Handler.class);
+        CallbackHandler.set(handler);
+
+        observable.test();
+
+        verify(fingerprintManager).authenticate(any(CryptoObject.class), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), eq(handler));
+    }
+
+    @Test
+    public void unavailableSensorIsNotStartedAfterPreparation() throws Exception {
+        when(fingerprintApiWrapper.getAvailableFingerprintManager()).thenReturn(null);
+        TestScheduler scheduler = new TestScheduler();
+        PreparationScheduler.set(scheduler);
+
+        TestObserver<FingerprintAuthenticationResult> testObserver = observable.test();
+        scheduler.triggerActions();
+
+        testObserver.assertError(FingerprintUnavailableException.class);
+        verify(fingerprintManager, never()).authenticate(any(CryptoObject.class), any(CancellationSignal.class), anyInt(), any(FingerprintManager.AuthenticationCallback.class), any(Handler.class));
+    }
 }
@@ -0,0 +1,74 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.KeyStore;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeyAliasIndexTest {
+
+	private static final String ALIAS = "alias";
+
+	private TestKeyStore spi;
+	private KeyStore keyStore;
+	private KeyAliasIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		spi = new TestKeyStore();
+		keyStore = TestKeyStore.create(spi);
+		index = new KeyAliasIndex();
+	}
+
+	@Test
+	public void unknownAliasFallsBackToKeyStore() throws Exception {
+		assertFalse(index.contains(keyStore, ALIAS));
+		assertEquals(1, spi.containsAliasCalls);
+		assertEquals(0, spi.aliasesCalls);
+	}
+
+	@Test
+	public void existingAliasIsRemembered() throws Exception {
+		spi.entries.put(ALIAS, new SecretKeySpec(new byte[16], "AES"));
+
+		assertTrue(index.contains(keyStore, ALIAS));
+		assertTrue(index.contains(keyStore, ALIAS));
+		assertEquals(1, spi.containsAliasCalls);
+	}
+
+	@Test
+	public void addedAliasDoesNotQueryKeyStore() throws Exception {
+		index.add(ALIAS);
+
+		assertTrue(index.contains(keyStore, ALIAS));
+		assertEquals(0, spi.containsAliasCalls);
+	}
+
+	@Test
+	public void removedAliasQueriesKeyStoreAgain() throws Exception {
+		index.add(ALIAS);
+		index.remove(ALIAS);
+
+		assertFalse(index.contains(keyStore, ALIAS));
+		assertEquals(1, spi.containsAliasCalls);
+	}
+
+	@Test
+	public void reconcileReplacesContent() throws Exception {
+		index.add("deleted");
+		spi.entries.put(ALIAS, new SecretKeySpec(new byte[16], "AES"));
+
+		index.reconcile(keyStore);
+
+		assertTrue(index.contains(keyStore, ALIAS));
+		assertEquals(0, spi.containsAliasCalls);
+		assertFalse(index.contains(keyStore, "deleted"));
+		assertEquals(1, spi.containsAliasCalls);
+	}
+}
@@ -0,0 +1,51 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class KeyCacheTest {
+
+	private final SecretKey first = new SecretKeySpec(new byte[]{1}, "AES");
+	private final SecretKey second = new SecretKeySpec(new byte[]{2}, "AES");
+	private final SecretKey third = new SecretKeySpec(new byte[]{3}, "AES");
+
+	@Test
+	public void returnsCachedKey() throws Exception {
+		KeyCache<SecretKey> cache = new KeyCache<>(2);
+		cache.put("first", first);
+
+		assertSame(first, cache.get("first"));
+		assertNull(cache.get("second"));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedKey() throws Exception {
+		KeyCache<SecretKey> cache = new KeyCache<>(2);
+		cache.put("first", first);
+		cache.put("second", second);
+		cache.get("first");
+		cache.put("third", third);
+
+		assertSame(first, cache.get("first"));
+		assertNull(cache.get("second"));
+		assertSame(third, cache.get("third"));
+	}
+
+	@Test
+	public void removesKey() throws Exception {
+		KeyCache<SecretKey> cache = new KeyCache<>(2);
+		cache.put("first", first);
+		cache.put("second", second);
+
+		cache.remove("first");
+		assertNull(cache.get("first"));
+
+		cache.clear();
+		assertNull(cache.get("second"));
+	}
+}
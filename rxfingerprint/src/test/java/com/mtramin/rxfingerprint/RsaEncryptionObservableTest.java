@@ -26,11 +26,16 @@ import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.Arrays;
+import java.util.List;
+
 import javax.crypto.Cipher;
 
 import io.reactivex.Observable;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -87,6 +92,24 @@ public class RsaEncryptionObservableTest {
 				.assertComplete()
 				.values().get(0);
 
-		assertEquals(INPUT, fingerprintEncryptionResult.getEncrypted());
+		CryptoData cryptoData = CryptoData.fromString(new TestEncodingProvider(), fingerprintEncryptionResult.getEncrypted(), EncryptionMethod.RSA);
+		assertEquals(EncryptionMethod.RSA, cryptoData.getMethod());
+		assertEquals(INPUT, new String(cryptoData.getMessage()));
+	}
+
+	@Test
+	public void encryptAll() throws Exception {
+		when(fingerprintApiWrapper.isUnavailable()).thenReturn(false);
+		when(cipherProvider.getCipherForEncryption()).thenReturn(cipher);
+		when(cipher.doFinal(ConversionUtils.toBytes(INPUT.toCharArray()))).thenReturn(ConversionUtils.toBytes(INPUT.toCharArray()));
+
+		List<char[]> values = Arrays.asList(INPUT.toCharArray(), INPUT.toCharArray());
+		Observable.create(new RsaEncryptionObservable(fingerprintApiWrapper, cipherProvider, values, new TestEncodingProvider()))
+				.test()
+				.assertValueCount(2)
+				.assertNoErrors()
+				.assertComplete();
+
+		verify(cipherProvider, times(1)).getCipherForEncryption();
 	}
 }
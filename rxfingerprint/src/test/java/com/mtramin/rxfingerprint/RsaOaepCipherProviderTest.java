@@ -0,0 +1,69 @@
+package com.mtramin.rxfingerprint;
+
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RsaOaepCipherProviderTest {
+
+	private static final String KEY_NAME = "key";
+
+	private Context context;
+
+	@Before
+	public void setUp() throws Exception {
+		context = mock(Context.class);
+		when(context.getPackageName()).thenReturn("com.example");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		KeyStoreSession.evictKeys(KEY_NAME);
+	}
+
+	@Test
+	public void usesOwnAliasForSameKeyName() throws Exception {
+		RsaCipherProvider rsa = new RsaCipherProvider(context, KEY_NAME);
+		RsaCipherProvider rsaHybrid = new RsaOaepCipherProvider(context, KEY_NAME);
+
+		assertEquals(KEY_NAME, rsa.keyName);
+		assertEquals(KEY_NAME + RsaOaepCipherProvider.ALIAS_SUFFIX, rsaHybrid.keyName);
+	}
+
+	@Test
+	public void usesOwnAliasForDefaultKeyName() throws Exception {
+		RsaCipherProvider rsa = new RsaCipherProvider(context, null);
+		RsaCipherProvider rsaHybrid = new RsaOaepCipherProvider(context, null);
+
+		assertNotEquals(rsa.keyName, rsaHybrid.keyName);
+	}
+
+	@Test
+	public void doesNotReusePublicKeyOfRsa() throws Exception {
+		PublicKey rsaPublicKey = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+		KeyStoreSession.publicKeys().put(new RsaCipherProvider(context, KEY_NAME).keyName, rsaPublicKey);
+
+		RsaCipherProvider rsaHybrid = new RsaOaepCipherProvider(context, KEY_NAME);
+
+		assertNull(KeyStoreSession.publicKeys().get(rsaHybrid.keyName));
+	}
+
+	@Test(expected = CryptoDataException.class)
+	public void rsaHybridValuesDoNotVerifyAgainstRsaAlias() throws Exception {
+		RsaCipherProvider rsaHybrid = new RsaOaepCipherProvider(context, KEY_NAME);
+		CryptoData cryptoData = CryptoData.fromBytes(new TestEncodingProvider(), EncryptionMethod.RSA_HYBRID, rsaHybrid.keyName, new byte[]{1}, new byte[0]);
+
+		cryptoData.verify(EncryptionMethod.RSA_HYBRID, KEY_NAME);
+	}
+}
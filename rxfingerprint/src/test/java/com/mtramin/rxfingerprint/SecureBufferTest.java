@@ -0,0 +1,93 @@
+package com.mtramin.rxfingerprint;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SecureBufferTest {
+
+	@Test
+	public void copyOf() throws Exception {
+		SecureBuffer buffer = SecureBuffer.copyOf(new byte[]{1, 2, 3});
+
+		assertEquals(3, buffer.length());
+		assertArrayEquals(new byte[]{1, 2, 3}, buffer.toBytes());
+		assertTrue(buffer.asReadOnlyBuffer().isDirect());
+	}
+
+	@Test
+	public void fromChars() throws Exception {
+		SecureBuffer buffer = SecureBuffer.fromChars("h\u00e9llo".toCharArray());
+
+		assertArrayEquals("h\u00e9llo".getBytes("UTF-8"), buffer.toBytes());
+		assertArrayEquals("h\u00e9llo".toCharArray(), buffer.toChars());
+	}
+
+	@Test
+	public void wipeClearsContent() throws Exception {
+		SecureBuffer buffer = SecureBuffer.copyOf(new byte[]{1, 2, 3});
+		ByteBuffer content = buffer.content();
+
+		buffer.wipe();
+
+		assertEquals(0, buffer.length());
+		assertEquals(0, content.get(0));
+		assertEquals(0, content.get(2));
+	}
+
+	@Test
+	public void wipeRespectsPosition() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(600);
+		for (int i = 0; i < buffer.capacity(); i++) {
+			buffer.put(i, (byte) 1);
+		}
+		buffer.position(10);
+
+		SecureBuffer.wipe(buffer);
+
+		assertEquals(10, buffer.position());
+		assertEquals(1, buffer.get(9));
+		assertEquals(0, buffer.get(10));
+		assertEquals(0, buffer.get(599));
+	}
+
+	@Test
+	public void closeWipes() throws Exception {
+		SecureBuffer buffer = SecureBuffer.copyOf(new byte[]{1, 2, 3});
+		ByteBuffer content = buffer.content();
+
+		assertFalse(buffer.isClosed());
+		buffer.close();
+		buffer.close();
+
+		assertTrue(buffer.isClosed());
+		assertEquals(0, content.get(1));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void closedBufferThrows() throws Exception {
+		SecureBuffer buffer = SecureBuffer.copyOf(new byte[]{1, 2, 3});
+		buffer.close();
+
+		buffer.toBytes();
+	}
+
+	@Test
+	public void sealAndOpenSecureBuffer() throws Exception {
+		byte[] dataKey = EnvelopeData.generateDataKey();
+		SecureBuffer plainText = SecureBuffer.copyOf("value".getBytes("UTF-8"));
+		ByteBuffer content = plainText.content();
+
+		byte[] bytes = EnvelopeData.seal(dataKey, new byte[48], plainText.content()).toBytes();
+		SecureBuffer decrypted = EnvelopeData.fromBytes(bytes).open(dataKey, DecryptionFormat.SECURE_BUFFER).getDecryptedBuffer();
+
+		assertEquals(0, content.get(0));
+		assertTrue(decrypted.asReadOnlyBuffer().isDirect());
+		assertArrayEquals("value".getBytes("UTF-8"), decrypted.toBytes());
+	}
+}
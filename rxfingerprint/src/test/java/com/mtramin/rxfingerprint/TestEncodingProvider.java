@@ -1,13 +1,17 @@
 package com.mtramin.rxfingerprint;
 
+import java.nio.charset.Charset;
+
 public class TestEncodingProvider implements EncodingProvider {
+	private static final Charset CHARSET = Charset.forName("ISO-8859-1");
+
 	@Override
 	public String encode(byte[] toEncode) {
-		return new String(toEncode);
+		return new String(toEncode, CHARSET);
 	}
 
 	@Override
 	public byte[] decode(String toDecode) {
-		return toDecode.getBytes();
+		return toDecode.getBytes(CHARSET);
 	}
 }
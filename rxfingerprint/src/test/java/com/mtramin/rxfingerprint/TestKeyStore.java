@@ -0,0 +1,112 @@
+package com.mtramin.rxfingerprint;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.KeyStoreSpi;
+import java.security.cert.Certificate;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link KeyStore} that counts the lookups performed on it.
+ */
+class TestKeyStore extends KeyStoreSpi {
+
+	final Map<String, Key> entries = new HashMap<>();
+	int containsAliasCalls;
+	int aliasesCalls;
+
+	static KeyStore create(TestKeyStore spi) throws Exception {
+		KeyStore keyStore = new KeyStore(spi, null, "Test") {
+		};
+		keyStore.load(null);
+		return keyStore;
+	}
+
+	@Override
+	public Key engineGetKey(String alias, char[] password) {
+		return entries.get(alias);
+	}
+
+	@Override
+	public Certificate[] engineGetCertificateChain(String alias) {
+		return null;
+	}
+
+	@Override
+	public Certificate engineGetCertificate(String alias) {
+		return null;
+	}
+
+	@Override
+	public Date engineGetCreationDate(String alias) {
+		return null;
+	}
+
+	@Override
+	public void engineSetKeyEntry(String alias, Key key, char[] password, Certificate[] chain) {
+		entries.put(alias, key);
+	}
+
+	@Override
+	public void engineSetKeyEntry(String alias, byte[] key, Certificate[] chain) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void engineSetCertificateEntry(String alias, Certificate cert) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void engineDeleteEntry(String alias) {
+		entries.remove(alias);
+	}
+
+	@Override
+	public Enumeration<String> engineAliases() {
+		aliasesCalls++;
+		return Collections.enumeration(entries.keySet());
+	}
+
+	@Override
+	public boolean engineContainsAlias(String alias) {
+		containsAliasCalls++;
+		return entries.containsKey(alias);
+	}
+
+	@Override
+	public int engineSize() {
+		return entries.size();
+	}
+
+	@Override
+	public boolean engineIsKeyEntry(String alias) {
+		return entries.containsKey(alias);
+	}
+
+	@Override
+	public boolean engineIsCertificateEntry(String alias) {
+		return false;
+	}
+
+	@Override
+	public String engineGetCertificateAlias(Certificate cert) {
+		return null;
+	}
+
+	@Override
+	public void engineStore(OutputStream stream, char[] password) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void engineLoad(InputStream stream, char[] password) {
+		// nothing to load
+	}
+}
@@ -1,8 +1,12 @@
 package com.mtramin.rxfingerprint.data;
 
+import com.mtramin.rxfingerprint.SecureBuffer;
+
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 
 public class FingerprintDecryptionResultTest {
@@ -16,6 +20,34 @@ public class FingerprintDecryptionResultTest {
 		assertEquals(decrypted, result.getDecryptedChars());
 	}
 
+	@Test
+	public void getBytesResultAsChars() throws Exception {
+		FingerprintDecryptionResult result = new FingerprintDecryptionResult("d\u00e9crypted".getBytes("UTF-8"));
+
+		assertEquals(FingerprintResult.AUTHENTICATED, result.getResult());
+		assertEquals("d\u00e9crypted", result.getDecrypted());
+	}
+
+	@Test
+	public void getCharsResultAsBytes() throws Exception {
+		FingerprintDecryptionResult result = new FingerprintDecryptionResult(FingerprintResult.AUTHENTICATED, null, "d\u00e9crypted".toCharArray());
+
+		assertArrayEquals("d\u00e9crypted".getBytes("UTF-8"), result.getDecryptedBytes());
+	}
+
+	@Test
+	public void getBufferResultReturnsFreshCopies() throws Exception {
+		FingerprintDecryptionResult result = new FingerprintDecryptionResult(SecureBuffer.fromChars("decrypted".toCharArray()));
+
+		char[] chars = result.getDecryptedChars();
+		assertArrayEquals("decrypted".toCharArray(), chars);
+		assertNotSame(chars, result.getDecryptedChars());
+
+		byte[] bytes = result.getDecryptedBytes();
+		assertArrayEquals("decrypted".getBytes("UTF-8"), bytes);
+		assertNotSame(bytes, result.getDecryptedBytes());
+	}
+
 	@Test(expected = IllegalAccessError.class)
 	public void getResultFailure() throws Exception {
 		String message = "some error happened";
@@ -1,5 +1,7 @@
 package com.mtramin.rxfingerprint.data;
 
+import com.mtramin.rxfingerprint.TestEncodingProvider;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -16,6 +18,26 @@ public class FingerprintEncryptionResultTest {
 		assertEquals(decrypted, result.getEncrypted());
 	}
 
+	@Test
+	public void encodesBytesResultOnce() throws Exception {
+		final int[] encodings = new int[1];
+		final byte[] encrypted = {1, 2, 3};
+		FingerprintEncryptionResult result = new FingerprintEncryptionResult(encrypted, new TestEncodingProvider() {
+			@Override
+			public String encode(byte[] toEncode) {
+				encodings[0]++;
+				return "encoded";
+			}
+		}) {
+		};
+
+		assertEquals(encrypted, result.getEncryptedBytes());
+		assertEquals(0, encodings[0]);
+		assertEquals("encoded", result.getEncrypted());
+		assertEquals("encoded", result.getEncrypted());
+		assertEquals(1, encodings[0]);
+	}
+
 	@Test(expected = IllegalAccessError.class)
 	public void getResultFailure() throws Exception {
 		String message = "some error happened";